@@ -0,0 +1,179 @@
+package com.fram.vigilapp.cache;
+
+import com.fram.vigilapp.dto.AlertDto;
+import com.fram.vigilapp.event.AlertChangedEvent;
+import com.fram.vigilapp.util.GeoUtil;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.index.quadtree.Quadtree;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Índice espacial en memoria de todas las alertas ACTIVE.
+ * Permite responder /api/alerts/nearby y /api/alerts/my-zone sin consultar
+ * la base de datos: las distancias se calculan con haversine en la JVM.
+ *
+ * Se mantiene al día escuchando AlertChangedEvent (después del commit) y se
+ * reconstruye al arrancar desde ActiveAlertIndexLoader. Cada alta y baja se
+ * propaga a los ActiveAlertListener registrados.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class ActiveAlertIndex {
+
+    private final GeoUtil geoUtil;
+    private final List<ActiveAlertListener> listeners;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Quadtree (a diferencia de STRtree) admite inserciones y borrados incrementales
+    private final Quadtree tree = new Quadtree();
+
+    // alertId -> DTO indexado (se usa para poder borrar del quadtree)
+    private final Map<UUID, AlertDto> alerts = new HashMap<>();
+
+    // Alertas dadas de baja mientras se cargaba el índice, para no reinsertarlas
+    private final Set<UUID> removedWhileLoading = new HashSet<>();
+    private boolean loading = false;
+
+    // Antes que los listeners que leen el índice (ZoneAlertFeedStore)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAlertChanged(AlertChangedEvent event) {
+        if (event.isActive()) {
+            put(event.getAlert());
+        } else {
+            remove(event.getAlert().getId());
+        }
+    }
+
+    public void put(AlertDto alert) {
+        lock.writeLock().lock();
+        try {
+            AlertDto previous = alerts.put(alert.getId(), alert);
+            if (previous != null) {
+                tree.remove(envelopeOf(previous), previous);
+            }
+            tree.insert(envelopeOf(alert), alert);
+            removedWhileLoading.remove(alert.getId());
+
+            if (previous == null) {
+                listeners.forEach(listener -> listener.alertActivated(alert));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(UUID alertId) {
+        lock.writeLock().lock();
+        try {
+            AlertDto previous = alerts.remove(alertId);
+            if (previous != null) {
+                tree.remove(envelopeOf(previous), previous);
+                listeners.forEach(listener -> listener.alertDeactivated(previous));
+            }
+            if (loading) {
+                removedWhileLoading.add(alertId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public Optional<AlertDto> get(UUID alertId) {
+        lock.readLock().lock();
+        try {
+            return Optional.ofNullable(alerts.get(alertId));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Alertas activas a menos de radiusM metros del punto, ordenadas por distancia.
+     * Devuelve copias de los DTOs con distanceFromUserM calculado.
+     */
+    @SuppressWarnings("unchecked")
+    public List<AlertDto> findWithinRadius(double latitude, double longitude, int radiusM) {
+        Envelope searchEnvelope = geoUtil.envelopeAround(latitude, longitude, radiusM);
+
+        List<AlertDto> candidates;
+        lock.readLock().lock();
+        try {
+            candidates = tree.query(searchEnvelope);
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<AlertDto> result = new ArrayList<>();
+        for (AlertDto candidate : candidates) {
+            double distance = geoUtil.haversineMeters(
+                    latitude, longitude, candidate.getLatitude(), candidate.getLongitude());
+            if (distance <= radiusM) {
+                result.add(candidate.toBuilder().distanceFromUserM(distance).build());
+            }
+        }
+
+        result.sort(Comparator.comparing(AlertDto::getDistanceFromUserM));
+        return result;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return alerts.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Marca el inicio de una carga completa del índice
+     */
+    public void beginLoad() {
+        lock.writeLock().lock();
+        try {
+            loading = true;
+            removedWhileLoading.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Carga las alertas leídas de la base de datos. Las alertas que ya están en el
+     * índice o que se dieron de baja durante la carga no se sobrescriben, porque
+     * los eventos recibidos mientras tanto son más recientes que la lectura.
+     */
+    public void completeLoad(Collection<AlertDto> activeAlerts) {
+        lock.writeLock().lock();
+        try {
+            for (AlertDto alert : activeAlerts) {
+                if (alerts.containsKey(alert.getId()) || removedWhileLoading.contains(alert.getId())) {
+                    continue;
+                }
+                alerts.put(alert.getId(), alert);
+                tree.insert(envelopeOf(alert), alert);
+                listeners.forEach(listener -> listener.alertActivated(alert));
+            }
+            loading = false;
+            removedWhileLoading.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private Envelope envelopeOf(AlertDto alert) {
+        return new Envelope(alert.getLongitude(), alert.getLongitude(), alert.getLatitude(), alert.getLatitude());
+    }
+}
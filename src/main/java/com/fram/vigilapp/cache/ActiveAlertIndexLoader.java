@@ -0,0 +1,38 @@
+package com.fram.vigilapp.cache;
+
+import com.fram.vigilapp.dto.AlertDto;
+import com.fram.vigilapp.service.AlertService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Reconstruye el índice de alertas activas desde la base de datos al arrancar
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ActiveAlertIndexLoader implements ApplicationRunner {
+
+    private final AlertService alertService;
+    private final ActiveAlertIndex activeAlertIndex;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        log.info("Loading active alerts into spatial index...");
+
+        activeAlertIndex.beginLoad();
+        List<AlertDto> activeAlerts = List.of();
+        try {
+            activeAlerts = alertService.getAlertsByStatus("ACTIVE");
+        } finally {
+            activeAlertIndex.completeLoad(activeAlerts);
+        }
+
+        log.info("Active alert index loaded with {} alerts", activeAlertIndex.size());
+    }
+}
@@ -0,0 +1,15 @@
+package com.fram.vigilapp.cache;
+
+import com.fram.vigilapp.dto.AlertDto;
+
+/**
+ * Estructuras derivadas del conjunto de alertas ACTIVE.
+ * ActiveAlertIndex las notifica exactamente una vez por alta y por baja,
+ * incluida la carga inicial, de modo que se mantienen coherentes con el índice.
+ */
+public interface ActiveAlertListener {
+
+    void alertActivated(AlertDto alert);
+
+    void alertDeactivated(AlertDto alert);
+}
@@ -0,0 +1,194 @@
+package com.fram.vigilapp.cache;
+
+import com.fram.vigilapp.dto.AlertDto;
+import com.fram.vigilapp.event.AlertChangedEvent;
+import com.fram.vigilapp.repository.AlertRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.OffsetDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Contadores de alertas agregados por hora de creación, ciudad, categoría,
+ * estado y estado de verificación.
+ *
+ * Se actualizan con cada AlertChangedEvent, así que getAlertStats suma como
+ * máximo 720 buckets (30 días) sin importar cuántas alertas existan.
+ * Se reconstruyen desde la base de datos al arrancar y cada 6 horas para
+ * corregir cualquier desviación. Los incrementos que llegan mientras corre la
+ * consulta se anotan y se vuelven a aplicar sobre el resultado antes de publicarlo,
+ * para no perderlos hasta la siguiente reconstrucción.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AlertStatsRollup implements ApplicationRunner {
+
+    // Se conservan 31 días para cubrir el rango "30d" completo
+    private static final int RETENTION_DAYS = 31;
+
+    private final AlertRepository alertRepository;
+
+    // epochHour -> (clave de agregación -> contador)
+    private volatile ConcurrentSkipListMap<Long, Map<RollupKey, LongAdder>> buckets = new ConcurrentSkipListMap<>();
+
+    // Incrementos recibidos durante una reconstrucción (null si no hay ninguna en curso)
+    private List<Delta> rebuildLog;
+
+    private record Delta(long hour, RollupKey key, long delta) {
+    }
+
+    @Value
+    public static class RollupKey {
+        UUID cityId;
+        String category;
+        String status;
+        String verificationStatus;
+    }
+
+    /**
+     * Resultado de sumar los buckets de un rango
+     */
+    @Value
+    public static class Totals {
+        long total;
+        Map<String, Long> byStatus;
+        Map<String, Long> byCategory;
+        Map<String, Long> byVerificationStatus;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        rebuild();
+    }
+
+    @Scheduled(cron = "0 17 */6 * * *")
+    public void rebuild() {
+        synchronized (this) {
+            rebuildLog = new ArrayList<>();
+        }
+
+        OffsetDateTime dateFrom = OffsetDateTime.now().minus(RETENTION_DAYS, ChronoUnit.DAYS);
+        ConcurrentSkipListMap<Long, Map<RollupKey, LongAdder>> rebuilt = new ConcurrentSkipListMap<>();
+
+        try {
+            for (Object[] row : alertRepository.countHourlyRollups(dateFrom)) {
+                long hour = ((Number) row[0]).longValue();
+                RollupKey key = new RollupKey((UUID) row[1], (String) row[2], (String) row[3], (String) row[4]);
+                LongAdder counter = new LongAdder();
+                counter.add(((Number) row[5]).longValue());
+                rebuilt.computeIfAbsent(hour, h -> new ConcurrentHashMap<>()).put(key, counter);
+            }
+        } catch (RuntimeException e) {
+            // Se conservan los buckets vivos; dejar de anotar
+            synchronized (this) {
+                rebuildLog = null;
+            }
+            throw e;
+        }
+
+        synchronized (this) {
+            for (Delta delta : rebuildLog) {
+                addTo(rebuilt, delta.hour(), delta.key(), delta.delta());
+            }
+            buckets = rebuilt;
+            rebuildLog = null;
+        }
+        log.info("Alert stats rollups rebuilt: {} hourly buckets", rebuilt.size());
+    }
+
+    @Scheduled(cron = "0 5 * * * *")
+    public void pruneExpiredBuckets() {
+        long oldestHour = epochHour(OffsetDateTime.now().minus(RETENTION_DAYS, ChronoUnit.DAYS));
+        buckets.headMap(oldestHour).clear();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAlertChanged(AlertChangedEvent event) {
+        AlertDto alert = event.getAlert();
+        if (alert.getCreatedAt() == null) {
+            return;
+        }
+
+        long hour = epochHour(alert.getCreatedAt());
+
+        if (event.getPreviousStatus() != null) {
+            increment(hour, keyOf(alert, event.getPreviousStatus()), -1);
+        }
+        if (event.getCurrentStatus() != null) {
+            increment(hour, keyOf(alert, event.getCurrentStatus()), 1);
+        }
+    }
+
+    /**
+     * Suma los buckets desde la hora de dateFrom hasta la hora actual (inclusive)
+     * @param cityId si no es null, solo cuenta alertas de esa ciudad
+     */
+    public Totals sum(OffsetDateTime dateFrom, OffsetDateTime dateTo, UUID cityId) {
+        ConcurrentNavigableMap<Long, Map<RollupKey, LongAdder>> range =
+                buckets.subMap(epochHour(dateFrom), true, epochHour(dateTo), true);
+
+        long total = 0;
+        Map<String, Long> byStatus = new HashMap<>();
+        Map<String, Long> byCategory = new HashMap<>();
+        Map<String, Long> byVerificationStatus = new HashMap<>();
+
+        for (Map<RollupKey, LongAdder> bucket : range.values()) {
+            for (Map.Entry<RollupKey, LongAdder> entry : bucket.entrySet()) {
+                RollupKey key = entry.getKey();
+                if (cityId != null && !cityId.equals(key.getCityId())) {
+                    continue;
+                }
+
+                long count = entry.getValue().sum();
+                if (count == 0) {
+                    continue;
+                }
+
+                total += count;
+                byStatus.merge(String.valueOf(key.getStatus()), count, Long::sum);
+                byCategory.merge(String.valueOf(key.getCategory()), count, Long::sum);
+                byVerificationStatus.merge(String.valueOf(key.getVerificationStatus()), count, Long::sum);
+            }
+        }
+
+        return new Totals(total, byStatus, byCategory, byVerificationStatus);
+    }
+
+    private synchronized void increment(long hour, RollupKey key, long delta) {
+        addTo(buckets, hour, key, delta);
+        if (rebuildLog != null) {
+            rebuildLog.add(new Delta(hour, key, delta));
+        }
+    }
+
+    private static void addTo(Map<Long, Map<RollupKey, LongAdder>> target, long hour, RollupKey key, long delta) {
+        target.computeIfAbsent(hour, h -> new ConcurrentHashMap<>())
+                .computeIfAbsent(key, k -> new LongAdder())
+                .add(delta);
+    }
+
+    private RollupKey keyOf(AlertDto alert, String status) {
+        return new RollupKey(alert.getCityId(), alert.getCategory(), status, alert.getVerificationStatus());
+    }
+
+    private long epochHour(OffsetDateTime dateTime) {
+        return Math.floorDiv(dateTime.toEpochSecond(), 3600L);
+    }
+}
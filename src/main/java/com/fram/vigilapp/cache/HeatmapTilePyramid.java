@@ -0,0 +1,192 @@
+package com.fram.vigilapp.cache;
+
+import com.fram.vigilapp.dto.AlertDto;
+import com.fram.vigilapp.dto.HeatmapPointDto;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Pirámide de teselas del mapa de calor mantenida de forma incremental.
+ *
+ * Para cada nivel de zoom soportado guarda el número de alertas ACTIVE por celda
+ * (teselas Web Mercator del nivel zoom + CELL_BITS) en un mapa long -> int.
+ * Una tesela z/x/y se sirve con 64 búsquedas en memoria, sin consultar la base de datos.
+ */
+@Component
+public class HeatmapTilePyramid implements ActiveAlertListener {
+
+    public static final int MIN_ZOOM = 2;
+    public static final int MAX_ZOOM = 16;
+
+    // Cada tesela se divide en 2^CELL_BITS x 2^CELL_BITS celdas (8 x 8)
+    private static final int CELL_BITS = 3;
+    private static final int CELLS_PER_TILE = 1 << CELL_BITS;
+
+    private static final int MIN_LEVEL = MIN_ZOOM + CELL_BITS;
+    private static final int MAX_LEVEL = MAX_ZOOM + CELL_BITS;
+
+    private static final double MAX_MERCATOR_LAT = 85.05112878;
+    private static final double EARTH_CIRCUMFERENCE_M = 40075016.686;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // levels[L - MIN_LEVEL] = conteos por celda del nivel L
+    private final LongIntCountMap[] levels = new LongIntCountMap[MAX_LEVEL - MIN_LEVEL + 1];
+
+    public HeatmapTilePyramid() {
+        for (int i = 0; i < levels.length; i++) {
+            levels[i] = new LongIntCountMap(1024);
+        }
+    }
+
+    @Override
+    public void alertActivated(AlertDto alert) {
+        add(alert.getLatitude(), alert.getLongitude(), 1);
+    }
+
+    @Override
+    public void alertDeactivated(AlertDto alert) {
+        add(alert.getLatitude(), alert.getLongitude(), -1);
+    }
+
+    private void add(double latitude, double longitude, int delta) {
+        lock.writeLock().lock();
+        try {
+            for (int level = MIN_LEVEL; level <= MAX_LEVEL; level++) {
+                long key = cellKey(lonToX(longitude, level), latToY(latitude, level));
+                levels[level - MIN_LEVEL].add(key, delta);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Celdas con alertas dentro de la tesela z/x/y (como máximo 8 x 8 puntos)
+     */
+    public List<HeatmapPointDto> getTile(int z, int x, int y) {
+        int level = z + CELL_BITS;
+        int firstX = x << CELL_BITS;
+        int firstY = y << CELL_BITS;
+
+        List<HeatmapPointDto> points = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            LongIntCountMap cells = levels[level - MIN_LEVEL];
+            for (int cx = firstX; cx < firstX + CELLS_PER_TILE; cx++) {
+                for (int cy = firstY; cy < firstY + CELLS_PER_TILE; cy++) {
+                    int count = cells.get(cellKey(cx, cy));
+                    if (count > 0) {
+                        points.add(toPoint(cx, cy, level, count));
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        return normalize(points);
+    }
+
+    /**
+     * Celdas con alertas dentro de un bounding box, usando el nivel cuyo tamaño
+     * de celda se aproxima más a gridSizeM en la latitud central
+     */
+    public List<HeatmapPointDto> getBounds(double swLat, double swLon, double neLat, double neLon, double gridSizeM) {
+        double centerLat = (swLat + neLat) / 2;
+        double worldWidthM = EARTH_CIRCUMFERENCE_M * Math.cos(Math.toRadians(centerLat));
+        int level = (int) Math.round(Math.log(worldWidthM / Math.max(gridSizeM, 1.0)) / Math.log(2));
+        level = Math.max(MIN_LEVEL, Math.min(MAX_LEVEL, level));
+
+        int minX = lonToX(swLon, level);
+        int maxX = lonToX(neLon, level);
+        int minY = latToY(neLat, level);
+        int maxY = latToY(swLat, level);
+
+        List<HeatmapPointDto> points = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            LongIntCountMap cells = levels[level - MIN_LEVEL];
+            long cellsInBounds = (long) (maxX - minX + 1) * (maxY - minY + 1);
+            final int finalLevel = level;
+
+            if (cellsInBounds <= cells.size()) {
+                // Bounding box pequeño: búsqueda directa de cada celda
+                for (int cx = minX; cx <= maxX; cx++) {
+                    for (int cy = minY; cy <= maxY; cy++) {
+                        int count = cells.get(cellKey(cx, cy));
+                        if (count > 0) {
+                            points.add(toPoint(cx, cy, level, count));
+                        }
+                    }
+                }
+            } else {
+                // Bounding box grande: recorrer solo las celdas ocupadas
+                cells.forEach((key, count) -> {
+                    int cx = (int) (key >>> 32);
+                    int cy = (int) key;
+                    if (cx >= minX && cx <= maxX && cy >= minY && cy <= maxY) {
+                        points.add(toPoint(cx, cy, finalLevel, count));
+                    }
+                });
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        return normalize(points);
+    }
+
+    private List<HeatmapPointDto> normalize(List<HeatmapPointDto> points) {
+        int maxCount = 1;
+        for (HeatmapPointDto point : points) {
+            maxCount = Math.max(maxCount, point.getCount());
+        }
+        for (HeatmapPointDto point : points) {
+            point.setIntensity((double) point.getCount() / maxCount);
+        }
+        points.sort(Comparator.comparing(HeatmapPointDto::getCount).reversed());
+        return points;
+    }
+
+    private HeatmapPointDto toPoint(int cx, int cy, int level, int count) {
+        // Centro de la celda
+        return HeatmapPointDto.builder()
+                .latitude(yToLat(cy + 0.5, level))
+                .longitude(xToLon(cx + 0.5, level))
+                .count(count)
+                .intensity(0.0)
+                .build();
+    }
+
+    private static long cellKey(int x, int y) {
+        return ((long) x << 32) | (y & 0xFFFFFFFFL);
+    }
+
+    private static int lonToX(double longitude, int level) {
+        int n = 1 << level;
+        int x = (int) Math.floor((longitude + 180.0) / 360.0 * n);
+        return Math.max(0, Math.min(n - 1, x));
+    }
+
+    private static int latToY(double latitude, int level) {
+        int n = 1 << level;
+        double lat = Math.toRadians(Math.max(-MAX_MERCATOR_LAT, Math.min(MAX_MERCATOR_LAT, latitude)));
+        int y = (int) Math.floor((1.0 - Math.log(Math.tan(lat) + 1.0 / Math.cos(lat)) / Math.PI) / 2.0 * n);
+        return Math.max(0, Math.min(n - 1, y));
+    }
+
+    private static double xToLon(double x, int level) {
+        return x / (1 << level) * 360.0 - 180.0;
+    }
+
+    private static double yToLat(double y, int level) {
+        double n = Math.PI - 2.0 * Math.PI * y / (1 << level);
+        return Math.toDegrees(Math.atan(Math.sinh(n)));
+    }
+}
@@ -0,0 +1,141 @@
+package com.fram.vigilapp.cache;
+
+import java.util.Arrays;
+
+/**
+ * Mapa long -> int de direccionamiento abierto (sondeo lineal) para contadores.
+ * Evita el boxing de Long/Integer y los objetos Entry de HashMap.
+ * Las entradas cuyo contador llega a cero se eliminan. No es thread-safe.
+ */
+class LongIntCountMap {
+
+    private static final long EMPTY = Long.MIN_VALUE;
+    private static final float LOAD_FACTOR = 0.6f;
+
+    interface Visitor {
+        void visit(long key, int count);
+    }
+
+    private long[] keys;
+    private int[] values;
+    private int mask;
+    private int size;
+    private int threshold;
+
+    LongIntCountMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(16, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+        allocate(capacity);
+    }
+
+    int size() {
+        return size;
+    }
+
+    int get(long key) {
+        int i = slot(key);
+        while (true) {
+            long k = keys[i];
+            if (k == EMPTY) {
+                return 0;
+            }
+            if (k == key) {
+                return values[i];
+            }
+            i = (i + 1) & mask;
+        }
+    }
+
+    /**
+     * Suma delta al contador de key y devuelve el nuevo valor (nunca negativo)
+     */
+    int add(long key, int delta) {
+        int i = slot(key);
+        while (true) {
+            long k = keys[i];
+            if (k == key) {
+                int value = values[i] + delta;
+                if (value <= 0) {
+                    removeAt(i);
+                    return 0;
+                }
+                values[i] = value;
+                return value;
+            }
+            if (k == EMPTY) {
+                if (delta <= 0) {
+                    return 0;
+                }
+                keys[i] = key;
+                values[i] = delta;
+                if (++size > threshold) {
+                    rehash(keys.length << 1);
+                }
+                return delta;
+            }
+            i = (i + 1) & mask;
+        }
+    }
+
+    void forEach(Visitor visitor) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY) {
+                visitor.visit(keys[i], values[i]);
+            }
+        }
+    }
+
+    void clear() {
+        Arrays.fill(keys, EMPTY);
+        Arrays.fill(values, 0);
+        size = 0;
+    }
+
+    private int slot(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    // Borrado con desplazamiento hacia atrás: no deja marcas de borrado en la tabla
+    private void removeAt(int index) {
+        size--;
+        int gap = index;
+        int i = (gap + 1) & mask;
+        while (keys[i] != EMPTY) {
+            int home = slot(keys[i]);
+            if (((i - home) & mask) >= ((i - gap) & mask)) {
+                keys[gap] = keys[i];
+                values[gap] = values[i];
+                gap = i;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[gap] = EMPTY;
+        values[gap] = 0;
+    }
+
+    private void rehash(int newCapacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(newCapacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int j = slot(oldKeys[i]);
+                while (keys[j] != EMPTY) {
+                    j = (j + 1) & mask;
+                }
+                keys[j] = oldKeys[i];
+                values[j] = oldValues[i];
+                size++;
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new int[capacity];
+        Arrays.fill(keys, EMPTY);
+        mask = capacity - 1;
+        size = 0;
+        threshold = (int) (capacity * LOAD_FACTOR);
+    }
+}
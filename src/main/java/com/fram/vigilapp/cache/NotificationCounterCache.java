@@ -0,0 +1,303 @@
+package com.fram.vigilapp.cache;
+
+import com.fram.vigilapp.event.NotificationCountsChangedEvent;
+import com.fram.vigilapp.repository.NotificationRepository;
+import com.fram.vigilapp.websocket.AlertWebSocketHandler;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Contadores por usuario de notificaciones no leídas y no entregadas.
+ *
+ * Se cargan la primera vez que se piden y desde entonces se actualizan con
+ * NotificationCountsChangedEvent tras cada commit, enviando el nuevo valor al socket
+ * del usuario si está conectado. Las actualizaciones de un mismo usuario se serializan
+ * con bloqueos por franjas, pero las consultas se hacen siempre fuera de ellos: la
+ * carga registra primero una entrada vacía (quien llegue después espera a esa carga)
+ * y cada 5 minutos se recalculan desde la base de datos (purgas, desviaciones) con una
+ * consulta agrupada por lote. Cada cambio aplicado sube la versión del contador, y el
+ * resultado de una consulta solo se escribe si la versión no cambió desde que empezó;
+ * si cambió, la carga se repite y la reconciliación deja el valor incremental. Se
+ * descartan los usuarios que llevan IDLE_MS sin consultarlos ni estar conectados.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class NotificationCounterCache {
+
+    private static final int STRIPES = 64;
+    private static final long IDLE_MS = 30 * 60_000L;
+    private static final int COUNT_BATCH = 1000;
+    private static final int MAX_LOAD_ATTEMPTS = 3;
+
+    private final NotificationRepository notificationRepository;
+    private final AlertWebSocketHandler webSocketHandler;
+
+    private final Object[] stripes = newStripes();
+    private final Map<UUID, Counters> counters = new ConcurrentHashMap<>();
+
+    // unread, undelivered y version se leen y escriben bajo la franja del usuario
+    private static class Counters {
+        long unread;
+        long undelivered;
+        long version;
+        volatile boolean loaded;
+        final CountDownLatch ready = new CountDownLatch(1);
+        volatile long lastUsedAt = System.currentTimeMillis();
+    }
+
+    private record Snapshot(Counters counters, long version) {
+    }
+
+    public long getUnread(UUID userId) {
+        Counters current = loaded(userId);
+        synchronized (stripe(userId)) {
+            return current.unread;
+        }
+    }
+
+    public long getUndelivered(UUID userId) {
+        Counters current = loaded(userId);
+        synchronized (stripe(userId)) {
+            return current.undelivered;
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCountsChanged(NotificationCountsChangedEvent event) {
+        if (event.isEmpty()) {
+            return;
+        }
+
+        List<UUID> toLoad = new ArrayList<>();
+        for (UUID userId : event.getUserIds()) {
+            boolean connected = webSocketHandler.isUserConnected(userId);
+            long unread;
+            long undelivered;
+
+            synchronized (stripe(userId)) {
+                Counters current = counters.get(userId);
+                if (current == null) {
+                    // Sin conectar se cargará (ya con este cambio) cuando se pida
+                    if (connected) {
+                        toLoad.add(userId);
+                    }
+                    continue;
+                }
+                current.version++;
+                if (!current.loaded) {
+                    // La carga en curso verá la versión nueva y consultará otra vez
+                    continue;
+                }
+                current.unread = Math.max(0, current.unread + event.getUnreadDelta());
+                current.undelivered = Math.max(0, current.undelivered + event.getUndeliveredDelta());
+                unread = current.unread;
+                undelivered = current.undelivered;
+            }
+
+            if (connected) {
+                push(userId, unread, undelivered);
+            }
+        }
+
+        // Conectados sin contadores: una sola consulta agrupada, fuera de los bloqueos
+        if (!toLoad.isEmpty()) {
+            load(toLoad).forEach((userId, current) -> {
+                long unread;
+                long undelivered;
+                synchronized (stripe(userId)) {
+                    unread = current.unread;
+                    undelivered = current.undelivered;
+                }
+                push(userId, unread, undelivered);
+            });
+        }
+    }
+
+    @Scheduled(fixedDelay = 300_000)
+    public void reconcile() {
+        long idleCutoff = System.currentTimeMillis() - IDLE_MS;
+
+        List<UUID> cached = new ArrayList<>();
+        Map<UUID, Snapshot> snapshots = new HashMap<>();
+        for (UUID userId : new ArrayList<>(counters.keySet())) {
+            boolean connected = webSocketHandler.isUserConnected(userId);
+            synchronized (stripe(userId)) {
+                Counters current = counters.get(userId);
+                if (current == null || !current.loaded) {
+                    continue;
+                }
+                if (!connected && current.lastUsedAt < idleCutoff) {
+                    counters.remove(userId);
+                    continue;
+                }
+                snapshots.put(userId, new Snapshot(current, current.version));
+            }
+            cached.add(userId);
+        }
+
+        int skipped = 0;
+        for (int from = 0; from < cached.size(); from += COUNT_BATCH) {
+            List<UUID> batch = cached.subList(from, Math.min(from + COUNT_BATCH, cached.size()));
+            Map<UUID, long[]> counts = countByUserIds(batch);
+
+            for (UUID userId : batch) {
+                Snapshot snapshot = snapshots.get(userId);
+                long[] userCounts = counts.getOrDefault(userId, new long[2]);
+                synchronized (stripe(userId)) {
+                    Counters current = snapshot.counters();
+                    // Un cambio posterior a la consulta no se pisa; se corrige en la próxima
+                    if (counters.get(userId) != current || current.version != snapshot.version()) {
+                        skipped++;
+                        continue;
+                    }
+                    current.unread = userCounts[0];
+                    current.undelivered = userCounts[1];
+                }
+            }
+        }
+        log.debug("Notification counters reconciled for {} users ({} changed meanwhile, {} cached)",
+                cached.size() - skipped, skipped, counters.size());
+    }
+
+    private Counters loaded(UUID userId) {
+        while (true) {
+            Counters current = counters.get(userId);
+            if (current == null || !current.loaded) {
+                current = load(List.of(userId)).get(userId);
+            }
+            // null si la carga de otro hilo falló: se intenta de nuevo
+            if (current != null) {
+                current.lastUsedAt = System.currentTimeMillis();
+                return current;
+            }
+        }
+    }
+
+    /**
+     * Carga los contadores que falten con una consulta agrupada hecha fuera de los bloqueos.
+     * Los que ya está cargando otro hilo se esperan en vez de consultarse dos veces.
+     * @return los contadores cargados de los usuarios indicados
+     */
+    private Map<UUID, Counters> load(Collection<UUID> userIds) {
+        Map<UUID, Counters> mine = new HashMap<>();
+        Map<UUID, Counters> others = new HashMap<>();
+        for (UUID userId : userIds) {
+            synchronized (stripe(userId)) {
+                Counters current = counters.get(userId);
+                if (current == null) {
+                    current = new Counters();
+                    counters.put(userId, current);
+                    mine.put(userId, current);
+                } else {
+                    others.put(userId, current);
+                }
+            }
+        }
+
+        try {
+            Map<UUID, Counters> pending = new HashMap<>(mine);
+            for (int attempt = 1; !pending.isEmpty(); attempt++) {
+                Map<UUID, Long> versions = new HashMap<>();
+                pending.forEach((userId, current) -> {
+                    synchronized (stripe(userId)) {
+                        versions.put(userId, current.version);
+                    }
+                });
+
+                Map<UUID, long[]> counts = countByUserIds(pending.keySet());
+
+                Iterator<Map.Entry<UUID, Counters>> it = pending.entrySet().iterator();
+                while (it.hasNext()) {
+                    Map.Entry<UUID, Counters> entry = it.next();
+                    Counters current = entry.getValue();
+                    long[] userCounts = counts.getOrDefault(entry.getKey(), new long[2]);
+                    synchronized (stripe(entry.getKey())) {
+                        // Con un cambio durante la consulta no se sabe si ya lo incluía: repetir.
+                        // Tras MAX_LOAD_ATTEMPTS se acepta y la reconciliación lo corrige
+                        if (current.version != versions.get(entry.getKey()) && attempt < MAX_LOAD_ATTEMPTS) {
+                            continue;
+                        }
+                        current.unread = userCounts[0];
+                        current.undelivered = userCounts[1];
+                        current.loaded = true;
+                    }
+                    it.remove();
+                }
+            }
+        } catch (RuntimeException e) {
+            mine.forEach((userId, current) -> {
+                synchronized (stripe(userId)) {
+                    if (!current.loaded) {
+                        counters.remove(userId, current);
+                    }
+                }
+            });
+            throw e;
+        } finally {
+            mine.values().forEach(current -> current.ready.countDown());
+        }
+
+        Map<UUID, Counters> result = new HashMap<>(mine);
+        for (Map.Entry<UUID, Counters> entry : others.entrySet()) {
+            try {
+                entry.getValue().ready.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrumpido esperando los contadores de notificaciones", e);
+            }
+            if (entry.getValue().loaded) {
+                result.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * [no leídas, no entregadas] por usuario, en consultas agrupadas de hasta COUNT_BATCH usuarios
+     */
+    private Map<UUID, long[]> countByUserIds(Collection<UUID> userIds) {
+        List<UUID> ids = new ArrayList<>(userIds);
+        Map<UUID, long[]> counts = new HashMap<>();
+        for (int from = 0; from < ids.size(); from += COUNT_BATCH) {
+            List<UUID> batch = ids.subList(from, Math.min(from + COUNT_BATCH, ids.size()));
+            for (Object[] row : notificationRepository.countByUserIds(batch)) {
+                counts.put((UUID) row[0], new long[]{((Number) row[1]).longValue(), ((Number) row[2]).longValue()});
+            }
+        }
+        return counts;
+    }
+
+    private void push(UUID userId, long unread, long undelivered) {
+        webSocketHandler.sendToUser(userId, Map.of(
+                "type", "NOTIFICATION_COUNTS",
+                "unread", unread,
+                "undelivered", undelivered
+        ));
+    }
+
+    private Object stripe(UUID userId) {
+        return stripes[(userId.hashCode() & 0x7fffffff) % STRIPES];
+    }
+
+    private static Object[] newStripes() {
+        Object[] locks = new Object[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new Object();
+        }
+        return locks;
+    }
+}
@@ -0,0 +1,188 @@
+package com.fram.vigilapp.cache;
+
+import com.fram.vigilapp.dto.AlertDto;
+import com.fram.vigilapp.event.AlertChangedEvent;
+import com.fram.vigilapp.repository.AlertRepository;
+import com.fram.vigilapp.service.impl.AlertDtoAssembler;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Buffer circular sin bloqueos con las últimas CAPACITY alertas ACTIVE/RESOLVED,
+ * para servir las primeras páginas de /api/alerts/recent sin SQL.
+ *
+ * Las escrituras reservan una posición con un AtomicLong y guardan la entrada
+ * junto a su número de secuencia; el anillo solo decide qué alerta se expulsa. El
+ * mapa live guarda la versión vigente de cada alerta del buffer (cambios de estado),
+ * deja de contener las que salen de ACTIVE/RESOLVED y es lo que leen los lectores.
+ * El total se mantiene con cada AlertChangedEvent y se recalcula con COUNT cada
+ * 10 minutos.
+ *
+ * El buffer está completo por encima de floor (orden createdAt, id): contiene todas
+ * las alertas ACTIVE/RESOLVED posteriores y latest() solo devuelve esas, así que el
+ * resto de la página se puede seguir por cursor en la base de datos. floor sube con
+ * cada alerta expulsada del anillo. Una alerta que vuelve a ACTIVE/RESOLVED (por
+ * ejemplo CANCELLED -> ACTIVE) se añade si cae por encima de floor; si es más antigua
+ * queda para la base de datos.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RecentAlertsBuffer implements ApplicationRunner {
+
+    public static final Set<String> RECENT_STATUSES = Set.of("ACTIVE", "RESOLVED");
+
+    public static final int CAPACITY = 512;
+    private static final int MASK = CAPACITY - 1;
+
+    private static final Comparator<AlertDto> RECENT_ORDER =
+            Comparator.comparing(AlertDto::getCreatedAt, Comparator.nullsFirst(Comparator.naturalOrder()))
+                    .thenComparing(AlertDto::getId);
+
+    private final AlertRepository alertRepository;
+    private final AlertDtoAssembler alertDtoAssembler;
+
+    private record Entry(long sequence, UUID alertId) {
+    }
+
+    // Versión vigente de una alerta del buffer y la posición que la representa
+    private record Live(AlertDto alert, long sequence) {
+    }
+
+    private final AtomicReferenceArray<Entry> slots = new AtomicReferenceArray<>(CAPACITY);
+    private final AtomicLong head = new AtomicLong();
+    private final Map<UUID, Live> live = new ConcurrentHashMap<>();
+    private final AtomicLong total = new AtomicLong(-1);
+
+    // Alerta más reciente por debajo de la cual el buffer puede tener huecos (null = sin huecos)
+    private final AtomicReference<AlertDto> floor = new AtomicReference<>();
+
+    private volatile boolean loaded = false;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        List<AlertDto> newestFirst = alertDtoAssembler.toDtos(alertRepository.findRecent(CAPACITY));
+        for (int i = newestFirst.size() - 1; i >= 0; i--) {
+            // Las recibidas por evento durante la carga ya están en el buffer
+            if (!live.containsKey(newestFirst.get(i).getId())) {
+                append(newestFirst.get(i));
+            }
+        }
+        if (newestFirst.size() == CAPACITY) {
+            // Puede haber alertas más antiguas que la última cargada
+            raiseFloor(newestFirst.get(CAPACITY - 1));
+        }
+        refreshTotal();
+        loaded = true;
+        log.info("Recent alerts buffer loaded with {} alerts", newestFirst.size());
+    }
+
+    @Scheduled(fixedDelay = 600_000, initialDelay = 600_000)
+    public void refreshTotal() {
+        total.set(alertRepository.countByStatusIn(List.copyOf(RECENT_STATUSES)));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAlertChanged(AlertChangedEvent event) {
+        AlertDto alert = event.getAlert();
+        boolean wasRecent = isRecentStatus(event.getPreviousStatus());
+        boolean isRecent = isRecentStatus(event.getCurrentStatus());
+
+        if (wasRecent != isRecent && total.get() >= 0) {
+            total.addAndGet(isRecent ? 1 : -1);
+        }
+
+        if (!wasRecent && isRecent) {
+            // Nueva o de vuelta a ACTIVE/RESOLVED; por debajo de floor la sirve la base de datos
+            if (isAboveFloor(alert)) {
+                append(alert);
+            }
+        } else if (isRecent) {
+            live.computeIfPresent(alert.getId(), (id, current) -> new Live(alert, current.sequence()));
+        } else {
+            live.remove(alert.getId());
+        }
+    }
+
+    /**
+     * Las limit alertas visibles más recientes (orden createdAt, id descendente).
+     * Se eligen entre todas las vigentes y no por posición en el anillo: una alerta que
+     * se volvió a añadir o una escritura que llegó desordenada tiene una secuencia más
+     * nueva que su lugar en el orden. Puede devolver menos si el buffer no tiene suficientes.
+     */
+    public List<AlertDto> latest(int limit) {
+        AlertDto currentFloor = floor.get();
+
+        List<AlertDto> visible = new ArrayList<>(live.size());
+        for (Live current : live.values()) {
+            if (currentFloor == null || RECENT_ORDER.compare(current.alert(), currentFloor) > 0) {
+                visible.add(current.alert());
+            }
+        }
+
+        visible.sort(RECENT_ORDER.reversed());
+        return visible.size() > limit ? new ArrayList<>(visible.subList(0, limit)) : visible;
+    }
+
+    /**
+     * true si el buffer contiene todas las alertas ACTIVE/RESOLVED existentes
+     */
+    public boolean holdsAll(int visibleCount) {
+        return loaded && floor.get() == null && visibleCount >= total.get();
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    public long getTotal() {
+        if (total.get() < 0) {
+            refreshTotal();
+        }
+        return total.get();
+    }
+
+    private static boolean isRecentStatus(String status) {
+        return status != null && RECENT_STATUSES.contains(status);
+    }
+
+    private boolean isAboveFloor(AlertDto alert) {
+        AlertDto currentFloor = floor.get();
+        return currentFloor == null || RECENT_ORDER.compare(alert, currentFloor) > 0;
+    }
+
+    private void raiseFloor(AlertDto alert) {
+        floor.accumulateAndGet(alert, (current, candidate) ->
+                current == null || RECENT_ORDER.compare(candidate, current) > 0 ? candidate : current);
+    }
+
+    private void append(AlertDto alert) {
+        long sequence = head.getAndIncrement();
+        live.put(alert.getId(), new Live(alert, sequence));
+        Entry previous = slots.getAndSet((int) (sequence & MASK), new Entry(sequence, alert.getId()));
+        if (previous != null && previous.sequence() < sequence) {
+            Live evicted = live.get(previous.alertId());
+            if (evicted != null && evicted.sequence() == previous.sequence()
+                    && live.remove(previous.alertId(), evicted)) {
+                // Por debajo de la expulsada ya no se garantiza que el buffer esté completo
+                raiseFloor(evicted.alert());
+            }
+        }
+    }
+}
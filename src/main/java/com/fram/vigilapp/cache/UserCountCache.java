@@ -0,0 +1,52 @@
+package com.fram.vigilapp.cache;
+
+import com.fram.vigilapp.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Contadores de usuarios (total y ACTIVE) para las estadísticas.
+ * Se incrementan al registrar usuarios y se recalculan con COUNT cada 5 minutos.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UserCountCache {
+
+    private final UserRepository userRepository;
+
+    private final AtomicLong totalUsers = new AtomicLong(-1);
+    private final AtomicLong activeUsers = new AtomicLong(-1);
+
+    @Scheduled(fixedDelay = 300_000)
+    public void refresh() {
+        totalUsers.set(userRepository.count());
+        activeUsers.set(userRepository.countByStatus("ACTIVE"));
+        log.debug("User counters refreshed: total={}, active={}", totalUsers.get(), activeUsers.get());
+    }
+
+    public void userRegistered(String status) {
+        totalUsers.incrementAndGet();
+        if ("ACTIVE".equals(status)) {
+            activeUsers.incrementAndGet();
+        }
+    }
+
+    public long getTotalUsers() {
+        if (totalUsers.get() < 0) {
+            refresh();
+        }
+        return totalUsers.get();
+    }
+
+    public long getActiveUsers() {
+        if (activeUsers.get() < 0) {
+            refresh();
+        }
+        return activeUsers.get();
+    }
+}
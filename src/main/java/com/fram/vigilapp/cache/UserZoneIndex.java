@@ -0,0 +1,170 @@
+package com.fram.vigilapp.cache;
+
+import com.fram.vigilapp.event.UserZoneChangedEvent;
+import com.fram.vigilapp.repository.UserZoneRepository;
+import com.fram.vigilapp.util.GeoUtil;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.locationtech.jts.geom.Coordinate;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.geom.Polygon;
+import org.locationtech.jts.index.quadtree.Quadtree;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Índice espacial inverso de las zonas de usuario (centro + radio).
+ * Responde "qué usuarios tienen una zona que contiene este punto" sin consultar
+ * la base de datos. Cada zona se indexa por el bounding box de su círculo.
+ *
+ * Se construye al arrancar y se actualiza con UserZoneChangedEvent después del commit.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UserZoneIndex implements ApplicationRunner {
+
+    private final UserZoneRepository userZoneRepository;
+    private final GeoUtil geoUtil;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Quadtree tree = new Quadtree();
+
+    // userId -> zona indexada (se usa para poder borrar del quadtree)
+    private final Map<UUID, Zone> zones = new HashMap<>();
+
+    public record Zone(UUID userId, double latitude, double longitude, int radiusM, Envelope envelope) {
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        int loaded = 0;
+        for (Object[] row : userZoneRepository.findAllZoneGeometries()) {
+            Polygon polygon = (Polygon) row[1];
+            if (polygon == null || row[2] == null) {
+                continue;
+            }
+            Coordinate centroid = polygon.getCentroid().getCoordinate();
+            put((UUID) row[0], centroid.y, centroid.x, (Integer) row[2]);
+            loaded++;
+        }
+        log.info("User zone index loaded with {} zones", loaded);
+    }
+
+    // Antes que los listeners que leen el índice (ZoneAlertFeedStore)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserZoneChanged(UserZoneChangedEvent event) {
+        if (event.isDeleted()) {
+            remove(event.getUserId());
+        } else {
+            put(event.getUserId(), event.getCenterLatitude(), event.getCenterLongitude(), event.getRadiusM());
+        }
+    }
+
+    public void put(UUID userId, double latitude, double longitude, int radiusM) {
+        Zone zone = new Zone(userId, latitude, longitude, radiusM, geoUtil.envelopeAround(latitude, longitude, radiusM));
+
+        lock.writeLock().lock();
+        try {
+            Zone previous = zones.put(userId, zone);
+            if (previous != null) {
+                tree.remove(previous.envelope(), previous);
+            }
+            tree.insert(zone.envelope(), zone);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(UUID userId) {
+        lock.writeLock().lock();
+        try {
+            Zone previous = zones.remove(userId);
+            if (previous != null) {
+                tree.remove(previous.envelope(), previous);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public Optional<Zone> get(UUID userId) {
+        lock.readLock().lock();
+        try {
+            return Optional.ofNullable(zones.get(userId));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Zonas cuyo círculo contiene el punto
+     */
+    @SuppressWarnings("unchecked")
+    public List<Zone> findZonesContaining(double latitude, double longitude) {
+        List<Zone> candidates;
+        lock.readLock().lock();
+        try {
+            candidates = tree.query(new Envelope(longitude, longitude, latitude, latitude));
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<Zone> result = new ArrayList<>();
+        for (Zone zone : candidates) {
+            // El quadtree puede devolver candidatos que no tocan el punto
+            if (zone.envelope().contains(longitude, latitude)
+                    && geoUtil.haversineMeters(zone.latitude(), zone.longitude(), latitude, longitude) <= zone.radiusM()) {
+                result.add(zone);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Usuarios cuyo centro de zona está a menos de radiusM metros del punto
+     */
+    @SuppressWarnings("unchecked")
+    public List<UUID> findUsersWithCenterWithin(double latitude, double longitude, int radiusM) {
+        Envelope searchEnvelope = geoUtil.envelopeAround(latitude, longitude, radiusM);
+
+        List<Zone> candidates;
+        lock.readLock().lock();
+        try {
+            candidates = tree.query(searchEnvelope);
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<UUID> result = new ArrayList<>();
+        for (Zone zone : candidates) {
+            if (geoUtil.haversineMeters(zone.latitude(), zone.longitude(), latitude, longitude) <= radiusM) {
+                result.add(zone.userId());
+            }
+        }
+        return result;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return zones.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.fram.vigilapp.cache;
+
+import com.fram.vigilapp.dto.AlertDto;
+import com.fram.vigilapp.event.AlertChangedEvent;
+import com.fram.vigilapp.event.UserZoneChangedEvent;
+import com.fram.vigilapp.util.GeoUtil;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Feeds precalculados de alertas por zona de usuario para /api/alerts/my-zone.
+ *
+ * El feed de un usuario se materializa la primera vez que lo pide, con su zona de
+ * UserZoneIndex y una búsqueda en ActiveAlertIndex. Desde entonces cada alerta que
+ * pasa a ACTIVE se añade a los feeds de las zonas que la contienen (también según
+ * UserZoneIndex), así que ni la lectura ni la escritura tocan la base de datos.
+ * Las alertas que dejan de estar activas se filtran al leer contra ActiveAlertIndex.
+ * El feed se invalida cuando el usuario cambia o borra su zona y se descarta si nadie
+ * lo lee durante FEED_IDLE_MS.
+ *
+ * Los listeners de esta clase corren después de los de ActiveAlertIndex y
+ * UserZoneIndex (@Order), así que cuando llegan los índices ya están al día.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ZoneAlertFeedStore {
+
+    private static final int FEED_CAPACITY = 200;
+    private static final long FEED_IDLE_MS = 30 * 60_000L;
+
+    private final ActiveAlertIndex activeAlertIndex;
+    private final UserZoneIndex userZoneIndex;
+    private final GeoUtil geoUtil;
+
+    private final Map<UUID, Feed> feeds = new ConcurrentHashMap<>();
+
+    /**
+     * Feed de una zona: centro, radio y las últimas alertas que cayeron dentro
+     * (alertId -> distancia al centro), en orden de llegada
+     */
+    private static class Feed {
+        final double latitude;
+        final double longitude;
+        final int radiusM;
+        final LinkedHashMap<UUID, Double> alerts = new LinkedHashMap<>();
+        volatile long lastReadAt = System.currentTimeMillis();
+
+        Feed(double latitude, double longitude, int radiusM) {
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.radiusM = radiusM;
+        }
+
+        synchronized void append(UUID alertId, double distance) {
+            alerts.put(alertId, distance);
+            if (alerts.size() > FEED_CAPACITY) {
+                Iterator<UUID> eldest = alerts.keySet().iterator();
+                eldest.next();
+                eldest.remove();
+            }
+        }
+
+        synchronized List<Map.Entry<UUID, Double>> snapshot() {
+            return new ArrayList<>(alerts.entrySet());
+        }
+    }
+
+    /**
+     * Alertas activas dentro de la zona del usuario, ordenadas por distancia al centro
+     * @return vacío si el usuario no tiene zona configurada
+     */
+    public Optional<List<AlertDto>> getFeed(UUID userId) {
+        Feed feed = feeds.get(userId);
+        if (feed == null) {
+            feed = materialize(userId);
+            if (feed == null) {
+                return Optional.empty();
+            }
+        }
+        feed.lastReadAt = System.currentTimeMillis();
+
+        List<AlertDto> result = new ArrayList<>();
+        for (Map.Entry<UUID, Double> entry : feed.snapshot()) {
+            activeAlertIndex.get(entry.getKey()).ifPresent(alert ->
+                    result.add(alert.toBuilder().distanceFromUserM(entry.getValue()).build()));
+        }
+        result.sort(Comparator.comparing(AlertDto::getDistanceFromUserM));
+        return Optional.of(result);
+    }
+
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAlertChanged(AlertChangedEvent event) {
+        if (!event.isActive() || event.wasActive()) {
+            return;
+        }
+
+        // Solo las zonas que contienen la alerta, según el índice inverso de zonas
+        AlertDto alert = event.getAlert();
+        for (UserZoneIndex.Zone zone : userZoneIndex.findZonesContaining(alert.getLatitude(), alert.getLongitude())) {
+            Feed feed = feeds.get(zone.userId());
+            if (feed == null) {
+                continue;
+            }
+            double distance = geoUtil.haversineMeters(
+                    feed.latitude, feed.longitude, alert.getLatitude(), alert.getLongitude());
+            if (distance <= feed.radiusM) {
+                feed.append(alert.getId(), distance);
+            }
+        }
+    }
+
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserZoneChanged(UserZoneChangedEvent event) {
+        invalidate(event.getUserId());
+    }
+
+    public void invalidate(UUID userId) {
+        feeds.remove(userId);
+    }
+
+    @Scheduled(fixedDelay = 300_000)
+    public void evictIdleFeeds() {
+        long cutoff = System.currentTimeMillis() - FEED_IDLE_MS;
+        feeds.values().removeIf(feed -> feed.lastReadAt < cutoff);
+    }
+
+    private Feed materialize(UUID userId) {
+        while (true) {
+            UserZoneIndex.Zone zone = userZoneIndex.get(userId).orElse(null);
+            if (zone == null) {
+                return null;
+            }
+
+            Feed feed = new Feed(zone.latitude(), zone.longitude(), zone.radiusM());
+            synchronized (feed) {
+                // Se registra antes de tomar la foto del índice: una alerta activada mientras
+                // tanto espera al monitor del feed y se añade después, en vez de perderse.
+                // Los lectores que lo encuentren también esperan a que esté completo
+                Feed existing = feeds.putIfAbsent(userId, feed);
+                if (existing != null) {
+                    return existing;
+                }
+
+                List<AlertDto> inZone = new ArrayList<>(
+                        activeAlertIndex.findWithinRadius(zone.latitude(), zone.longitude(), zone.radiusM()));
+                inZone.sort(Comparator.comparing(AlertDto::getCreatedAt, Comparator.nullsFirst(Comparator.naturalOrder())));
+                for (AlertDto alert : inZone) {
+                    feed.append(alert.getId(), alert.getDistanceFromUserM());
+                }
+            }
+
+            // Si la zona cambió entre la lectura y el registro, la invalidación pudo llegar
+            // antes que el feed: se descarta y se construye con la zona nueva
+            if (userZoneIndex.get(userId).orElse(null) == zone) {
+                return feed;
+            }
+            feeds.remove(userId, feed);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.fram.vigilapp.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Tiempo de vida de las alertas ACTIVE por categoría (alerts.expiry.*)
+ */
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "alerts.expiry")
+public class AlertExpiryProperties {
+
+    private boolean enabled = true;
+
+    // TTL por categoría (EMERGENCY, PRECAUTION, INFO, COMMUNITY)
+    private Map<String, Duration> ttl = new HashMap<>();
+
+    // TTL para categorías sin entrada en ttl
+    private Duration defaultTtl = Duration.ofHours(24);
+
+    // Máximo de alertas por UPDATE
+    private int batchSize = 500;
+
+    public Duration ttlFor(String category) {
+        return category == null ? defaultTtl : ttl.getOrDefault(category, defaultTtl);
+    }
+}
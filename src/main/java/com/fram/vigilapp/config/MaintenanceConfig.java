@@ -0,0 +1,26 @@
+package com.fram.vigilapp.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Executor de un solo hilo para trabajos de mantenimiento largos (purga de notificaciones),
+ * separado de los hilos HTTP y del scheduler
+ */
+@Configuration
+public class MaintenanceConfig {
+
+    @Bean
+    public ThreadPoolTaskExecutor maintenanceExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        // Una ejecución puede esperar mientras la anterior termina de cerrar en el único hilo
+        executor.setQueueCapacity(1);
+        executor.setThreadNamePrefix("maintenance-");
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.initialize();
+        return executor;
+    }
+}
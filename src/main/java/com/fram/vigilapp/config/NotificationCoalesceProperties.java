@@ -0,0 +1,32 @@
+package com.fram.vigilapp.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Agrupación de notificaciones por usuario durante ráfagas de alertas (notifications.coalesce.*)
+ */
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "notifications.coalesce")
+public class NotificationCoalesceProperties {
+
+    private boolean enabled = true;
+
+    // Tiempo que se acumulan las notificaciones de un usuario tras la primera
+    private Duration window = Duration.ofSeconds(30);
+
+    // Categorías que se entregan siempre al momento
+    private Set<String> bypassCategories = new HashSet<>(Set.of("EMERGENCY"));
+
+    public boolean appliesTo(String category) {
+        return enabled && !bypassCategories.contains(category);
+    }
+}
@@ -0,0 +1,128 @@
+package com.fram.vigilapp.config;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fram.vigilapp.repository.AlertRepository;
+import com.fram.vigilapp.repository.NotificationRepository;
+import com.fram.vigilapp.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Comprueba al arrancar que las consultas calientes pueden usar sus índices.
+ *
+ * Ejecuta EXPLAIN (FORMAT JSON) de cada consulta con enable_seqscan desactivado
+ * (solo dentro de la transacción): si aun así el plan contiene un Seq Scan sobre
+ * la tabla, o no aparece ninguno de los índices esperados, el predicado no es
+ * compatible con el índice (por ejemplo por un cast sobre la columna).
+ * Se activa con database.plan-check.enabled=true.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "database.plan-check.enabled", havingValue = "true")
+public class QueryPlanCheck implements ApplicationRunner {
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Value("${database.plan-check.fail-fast:false}")
+    private boolean failFast;
+
+    private record Check(String name, String sql, Map<String, Object> params, Set<String> expectedIndexes) {
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        Map<String, Object> point = Map.of("latitude", -0.18, "longitude", -78.47, "radiusM", 1000);
+        Map<String, Object> bounds = Map.of("minLat", -0.3, "minLon", -78.6, "maxLat", -0.1, "maxLon", -78.4);
+        Map<String, Object> user = Map.of("userId", new UUID(0, 0));
+
+        List<Check> checks = List.of(
+                new Check("alerts.activeWithinRadius", AlertRepository.ACTIVE_WITHIN_RADIUS_SQL, point,
+                        Set.of("idx_alerts_active_geometry", "idx_alerts_geometry")),
+                new Check("alerts.allWithinRadius", AlertRepository.ALL_WITHIN_RADIUS_SQL, point,
+                        Set.of("idx_alerts_geometry")),
+                new Check("alerts.activeInBounds", AlertRepository.ACTIVE_IN_BOUNDS_SQL, bounds,
+                        Set.of("idx_alerts_active_bbox")),
+                new Check("users.inZone", UserRepository.USERS_IN_ZONE_SQL, point,
+                        Set.of("idx_user_zones_geometry")),
+                new Check("notifications.countUnread", NotificationRepository.COUNT_UNREAD_SQL, user,
+                        Set.of("idx_notifications_user_unread", "idx_notifications_user_id")),
+                new Check("notifications.countUndelivered", NotificationRepository.COUNT_UNDELIVERED_SQL, user,
+                        Set.of("idx_notifications_user_undelivered", "idx_notifications_user_id"))
+        );
+
+        List<String> failures = new ArrayList<>();
+        for (Check check : checks) {
+            try {
+                String problem = verify(check);
+                if (problem == null) {
+                    log.info("Plan check OK: {}", check.name());
+                } else {
+                    log.warn("Plan check FAILED: {} - {}", check.name(), problem);
+                    failures.add(check.name() + ": " + problem);
+                }
+            } catch (Exception e) {
+                log.warn("Plan check could not run for {}: {}", check.name(), e.getMessage());
+                failures.add(check.name() + ": " + e.getMessage());
+            }
+        }
+
+        if (!failures.isEmpty() && failFast) {
+            throw new IllegalStateException("Consultas sin uso de índice: " + String.join("; ", failures));
+        }
+    }
+
+    /**
+     * @return descripción del problema, o null si el plan usa un índice esperado
+     */
+    private String verify(Check check) throws Exception {
+        String planJson = transactionTemplate.execute(status -> {
+            jdbcTemplate.getJdbcTemplate().execute("SET LOCAL enable_seqscan = off");
+            return jdbcTemplate.queryForObject("EXPLAIN (FORMAT JSON) " + check.sql(), check.params(), String.class);
+        });
+
+        JsonNode root = objectMapper.readTree(planJson).get(0).get("Plan");
+        List<String> seqScans = new ArrayList<>();
+        List<String> indexes = new ArrayList<>();
+        collect(root, seqScans, indexes);
+
+        if (!seqScans.isEmpty()) {
+            return "Seq Scan sobre " + seqScans;
+        }
+        if (indexes.stream().noneMatch(check.expectedIndexes()::contains)) {
+            return "se esperaba uno de " + check.expectedIndexes() + " y el plan usa " + indexes;
+        }
+        return null;
+    }
+
+    private void collect(JsonNode node, List<String> seqScans, List<String> indexes) {
+        if (node == null) {
+            return;
+        }
+        if ("Seq Scan".equals(node.path("Node Type").asText())) {
+            seqScans.add(node.path("Relation Name").asText());
+        }
+        if (node.has("Index Name")) {
+            indexes.add(node.get("Index Name").asText());
+        }
+        for (JsonNode child : node.path("Plans")) {
+            collect(child, seqScans, indexes);
+        }
+    }
+}
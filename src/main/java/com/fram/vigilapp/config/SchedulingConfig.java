@@ -0,0 +1,35 @@
+package com.fram.vigilapp.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+/**
+ * Habilita las tareas programadas (@Scheduled) de la aplicación.
+ *
+ * Hay ticks de 1 s o menos (expiración de alertas, latido WebSocket, frames agrupados,
+ * bus entre instancias) junto a trabajos lentos (rollups, reconciliación de contadores,
+ * lotes push, reintentos, outbox), así que usan un pool y no el hilo único por defecto:
+ * un trabajo lento no retrasa los ticks. Se declara como "taskScheduler" porque las
+ * configuraciones WebSocket registran sus propios TaskScheduler y con ellos Spring Boot
+ * no crea el suyo.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+
+    @Value("${scheduling.pool-size:8}")
+    private int poolSize;
+
+    @Bean
+    public ThreadPoolTaskScheduler taskScheduler() {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(poolSize);
+        scheduler.setThreadNamePrefix("scheduling-");
+        scheduler.setWaitForTasksToCompleteOnShutdown(true);
+        scheduler.setAwaitTerminationSeconds(10);
+        return scheduler;
+    }
+}
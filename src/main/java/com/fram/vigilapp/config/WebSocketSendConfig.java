@@ -0,0 +1,34 @@
+package com.fram.vigilapp.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Executor donde se escriben los mensajes WebSocket salientes, para que el hilo que
+ * reparte una alerta nunca espere a un socket lento. Cada sesión tiene como mucho una
+ * tarea en él (SessionRegistry vacía su cola por orden), así que la cola acotada nunca
+ * bloquea al que reparte: si se llena, los mensajes esperan en la cola de la sesión.
+ */
+@Configuration
+public class WebSocketSendConfig {
+
+    @Value("${websocket.send.threads:4}")
+    private int threads;
+
+    @Value("${websocket.send.queue-capacity:20000}")
+    private int queueCapacity;
+
+    @Bean
+    public ThreadPoolTaskExecutor webSocketSendExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("ws-send-");
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        executor.initialize();
+        return executor;
+    }
+}
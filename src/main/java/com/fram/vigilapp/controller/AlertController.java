@@ -1,6 +1,7 @@
 package com.fram.vigilapp.controller;
 
 import com.fram.vigilapp.dto.AlertDto;
+import com.fram.vigilapp.dto.AlertSearchResultDto;
 import com.fram.vigilapp.dto.AlertStatsDto;
 import com.fram.vigilapp.dto.HeatmapPointDto;
 import com.fram.vigilapp.dto.SaveAlertDto;
@@ -185,24 +186,33 @@ public class AlertController {
     /**
      * Get recent alerts with pagination
      * GET /api/alerts/recent?page=0&size=20
+     * Para páginas profundas enviar cursor=<cabecera X-Next-Cursor de la respuesta anterior>
      */
     @GetMapping("/recent")
     @PreAuthorize("hasAnyRole('USER', 'MOD', 'ADMIN')")
     public ResponseEntity<Page<AlertDto>> getRecentAlerts(
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "20") int size) {
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(required = false) String cursor) {
         Pageable pageable = PageRequest.of(page, size);
-        Page<AlertDto> alerts = alertService.getRecentAlerts(pageable);
-        return ResponseEntity.ok(alerts);
+        Page<AlertDto> alerts = alertService.getRecentAlerts(pageable, cursor);
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (alerts.hasContent()) {
+            AlertDto last = alerts.getContent().get(alerts.getNumberOfElements() - 1);
+            response.header("X-Next-Cursor", alertService.getRecentAlertsCursor(last));
+        }
+        return response.body(alerts);
     }
 
     /**
      * Advanced alert search with multiple filters
-     * GET /api/alerts/search?query=incendio&category=EMERGENCY&status=ACTIVE&skip=0&limit=20
+     * GET /api/alerts/search?query=incendio&category=EMERGENCY&status=ACTIVE&limit=20
+     * Para la página siguiente enviar cursor=<nextCursor de la respuesta anterior>
      */
     @GetMapping("/search")
     @PreAuthorize("hasAnyRole('USER', 'MOD', 'ADMIN')")
-    public ResponseEntity<List<AlertDto>> searchAlerts(
+    public ResponseEntity<AlertSearchResultDto> searchAlerts(
             @RequestParam(required = false) String query,
             @RequestParam(required = false) String category,
             @RequestParam(required = false) String status,
@@ -214,13 +224,13 @@ public class AlertController {
             @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime dateFrom,
             @RequestParam(required = false)
             @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime dateTo,
-            @RequestParam(defaultValue = "0") int skip,
+            @RequestParam(required = false) String cursor,
             @RequestParam(defaultValue = "50") int limit) {
 
-        List<AlertDto> alerts = alertService.searchAlerts(
+        AlertSearchResultDto result = alertService.searchAlerts(
                 query, category, status, verificationStatus, cityId,
-                minRadiusM, maxRadiusM, dateFrom, dateTo, skip, limit);
-        return ResponseEntity.ok(alerts);
+                minRadiusM, maxRadiusM, dateFrom, dateTo, cursor, limit);
+        return ResponseEntity.ok(result);
     }
 
     /**
@@ -240,6 +250,20 @@ public class AlertController {
         return ResponseEntity.ok(heatmapData);
     }
 
+    /**
+     * Get heatmap cells for one map tile (8x8 cells per tile)
+     * GET /api/alerts/heatmap/tiles/14/4823/7712
+     */
+    @GetMapping("/heatmap/tiles/{z}/{x}/{y}")
+    @PreAuthorize("hasAnyRole('USER', 'MOD', 'ADMIN')")
+    public ResponseEntity<List<HeatmapPointDto>> getHeatmapTile(
+            @PathVariable int z,
+            @PathVariable int x,
+            @PathVariable int y) {
+
+        return ResponseEntity.ok(alertService.getHeatmapTile(z, x, y));
+    }
+
     /**
      * Get alert statistics
      * GET /api/alerts/stats?timeRange=7d&cityId=<uuid>
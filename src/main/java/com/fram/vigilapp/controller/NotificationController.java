@@ -1,9 +1,13 @@
 package com.fram.vigilapp.controller;
 
+import com.fram.vigilapp.dto.NotificationAckDto;
+import com.fram.vigilapp.dto.NotificationAckResultDto;
 import com.fram.vigilapp.dto.NotificationDto;
+import com.fram.vigilapp.dto.NotificationPurgeStatusDto;
 import com.fram.vigilapp.service.NotificationService;
 import com.fram.vigilapp.util.JwtUtil;
 import com.fram.vigilapp.util.UserUtil;
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
@@ -136,6 +140,17 @@ public class NotificationController {
         return ResponseEntity.ok(notification);
     }
 
+    /**
+     * Bulk acknowledge notifications of the current user as DELIVERED or READ
+     * PUT /api/notifications/ack  { "notificationIds": [...], "state": "READ" }
+     */
+    @PutMapping("/ack")
+    @PreAuthorize("hasAnyRole('USER', 'MOD', 'ADMIN')")
+    public ResponseEntity<NotificationAckResultDto> acknowledge(@Valid @RequestBody NotificationAckDto ackDto) {
+        UUID userId = userUtil.getUserId();
+        return ResponseEntity.ok(notificationService.acknowledge(userId, ackDto.getNotificationIds(), ackDto.getState()));
+    }
+
     /**
      * Mark all unread notifications as read for the current user
      * PUT /api/notifications/read-all
@@ -168,4 +183,52 @@ public class NotificationController {
             @RequestParam String channel) {
         return ResponseEntity.ok(notificationService.getQueuedNotificationsByChannel(channel));
     }
+
+    /**
+     * Start the background purge of notifications older than the given days (admin only)
+     * POST /api/notifications/purge?olderThanDays=90
+     */
+    @PostMapping("/purge")
+    @PreAuthorize("hasAnyRole('ADMIN')")
+    public ResponseEntity<NotificationPurgeStatusDto> startPurge(@RequestParam int olderThanDays) {
+        notificationService.deleteOldNotifications(olderThanDays);
+        return ResponseEntity.accepted().body(notificationService.getPurgeStatus());
+    }
+
+    /**
+     * Progress of the background purge (admin only)
+     * GET /api/notifications/purge
+     */
+    @GetMapping("/purge")
+    @PreAuthorize("hasAnyRole('ADMIN')")
+    public ResponseEntity<NotificationPurgeStatusDto> getPurgeStatus() {
+        return ResponseEntity.ok(notificationService.getPurgeStatus());
+    }
+
+    /**
+     * PUT /api/notifications/purge/pause
+     */
+    @PutMapping("/purge/pause")
+    @PreAuthorize("hasAnyRole('ADMIN')")
+    public ResponseEntity<NotificationPurgeStatusDto> pausePurge() {
+        return ResponseEntity.ok(notificationService.pausePurge());
+    }
+
+    /**
+     * PUT /api/notifications/purge/resume
+     */
+    @PutMapping("/purge/resume")
+    @PreAuthorize("hasAnyRole('ADMIN')")
+    public ResponseEntity<NotificationPurgeStatusDto> resumePurge() {
+        return ResponseEntity.ok(notificationService.resumePurge());
+    }
+
+    /**
+     * PUT /api/notifications/purge/cancel
+     */
+    @PutMapping("/purge/cancel")
+    @PreAuthorize("hasAnyRole('ADMIN')")
+    public ResponseEntity<NotificationPurgeStatusDto> cancelPurge() {
+        return ResponseEntity.ok(notificationService.cancelPurge());
+    }
 }
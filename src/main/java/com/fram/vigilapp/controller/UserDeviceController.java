@@ -0,0 +1,52 @@
+package com.fram.vigilapp.controller;
+
+import com.fram.vigilapp.dto.SaveUserDeviceDto;
+import com.fram.vigilapp.dto.UserDeviceDto;
+import com.fram.vigilapp.service.UserDeviceService;
+import com.fram.vigilapp.util.UserUtil;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/devices")
+@RequiredArgsConstructor
+public class UserDeviceController {
+
+    private final UserDeviceService userDeviceService;
+    private final UserUtil userUtil;
+
+    /**
+     * Register (or refresh) a push token for the current user
+     * POST /api/devices
+     */
+    @PostMapping
+    @PreAuthorize("hasAnyRole('USER', 'MOD', 'ADMIN')")
+    public ResponseEntity<UserDeviceDto> registerDevice(@Valid @RequestBody SaveUserDeviceDto saveUserDeviceDto) {
+        return ResponseEntity.ok(userDeviceService.registerDevice(userUtil.getUserId(), saveUserDeviceDto));
+    }
+
+    /**
+     * GET /api/devices
+     */
+    @GetMapping
+    @PreAuthorize("hasAnyRole('USER', 'MOD', 'ADMIN')")
+    public ResponseEntity<List<UserDeviceDto>> getMyDevices() {
+        return ResponseEntity.ok(userDeviceService.getUserDevices(userUtil.getUserId()));
+    }
+
+    /**
+     * Remove a push token of the current user (e.g. on logout)
+     * DELETE /api/devices?token=...
+     */
+    @DeleteMapping
+    @PreAuthorize("hasAnyRole('USER', 'MOD', 'ADMIN')")
+    public ResponseEntity<Void> unregisterDevice(@RequestParam String token) {
+        userDeviceService.unregisterDevice(userUtil.getUserId(), token);
+        return ResponseEntity.noContent().build();
+    }
+}
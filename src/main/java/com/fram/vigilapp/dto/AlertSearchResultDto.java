@@ -0,0 +1,15 @@
+package com.fram.vigilapp.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class AlertSearchResultDto {
+    private List<AlertDto> alerts;
+    private String nextCursor; // null when there are no more results
+}
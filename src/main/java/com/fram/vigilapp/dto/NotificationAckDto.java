@@ -0,0 +1,23 @@
+package com.fram.vigilapp.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.*;
+
+import java.util.List;
+import java.util.UUID;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class NotificationAckDto {
+    @NotEmpty(message = "Se requiere al menos una notificación")
+    @Size(max = 500, message = "Máximo 500 notificaciones por confirmación")
+    private List<UUID> notificationIds;
+
+    @NotBlank(message = "El estado es requerido")
+    private String state; // DELIVERED | READ
+}
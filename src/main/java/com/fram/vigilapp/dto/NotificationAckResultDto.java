@@ -0,0 +1,14 @@
+package com.fram.vigilapp.dto;
+
+import lombok.*;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class NotificationAckResultDto {
+    private String state;
+    private int requested;
+    private int updated; // filas que cambiaron de estado (las ya confirmadas o ajenas no cuentan)
+}
@@ -3,6 +3,7 @@ package com.fram.vigilapp.dto;
 import lombok.*;
 
 import java.time.OffsetDateTime;
+import java.util.List;
 import java.util.UUID;
 
 @Getter
@@ -16,9 +17,10 @@ public class NotificationDto {
     private String alertTitle;
     private String alertCategory;
     private String alertDescription;
+    private List<UUID> digestAlertIds; // alertas agrupadas en este resumen (null si es una sola)
     private UUID userId;
     private String channel; // PUSH | EMAIL | SMS
-    private String status; // QUEUED | SENT | DELIVERED | FAILED
+    private String status; // QUEUED | SENDING | SENT | DELIVERED | FAILED | NO_DEVICE
     private OffsetDateTime sentAt;
     private OffsetDateTime deliveredAt;
     private OffsetDateTime readAt;
@@ -0,0 +1,17 @@
+package com.fram.vigilapp.dto;
+
+import lombok.*;
+
+import java.util.List;
+import java.util.UUID;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class NotificationFanoutResult {
+    private UUID alertId;
+    private int recipientCount;
+    private List<UUID> recipientIds; // users that got a new notification row
+}
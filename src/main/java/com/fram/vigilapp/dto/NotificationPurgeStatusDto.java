@@ -0,0 +1,24 @@
+package com.fram.vigilapp.dto;
+
+import lombok.*;
+
+import java.time.OffsetDateTime;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class NotificationPurgeStatusDto {
+    private String state; // IDLE | RUNNING | PAUSED | COMPLETED | CANCELLED | FAILED
+    private OffsetDateTime cutoff;
+    private long deletedRows;
+    private long archivedRows;
+    private long chunks;
+    private int chunkSize;
+    private OffsetDateTime lastCreatedAt; // posición del cursor (created_at del último borrado)
+    private String archiveFile;
+    private OffsetDateTime startedAt;
+    private OffsetDateTime finishedAt;
+    private String lastError;
+}
@@ -0,0 +1,20 @@
+package com.fram.vigilapp.dto;
+
+import lombok.*;
+
+import java.util.Map;
+import java.util.UUID;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class PushMessage {
+    private UUID notificationId;
+    private String provider;
+    private String token;
+    private String title;
+    private String body;
+    private Map<String, String> data;
+}
@@ -0,0 +1,15 @@
+package com.fram.vigilapp.dto;
+
+import lombok.*;
+
+import java.util.Set;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class PushSendResult {
+    private Set<String> failedTokens; // rechazados en este envío (se puede reintentar)
+    private Set<String> invalidTokens; // tokens que ya no existen: se borran los dispositivos
+}
@@ -0,0 +1,17 @@
+package com.fram.vigilapp.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.*;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class SaveUserDeviceDto {
+    @NotBlank(message = "El proveedor es requerido")
+    private String provider; // FCM | APNS | LOCAL
+
+    @NotBlank(message = "El token es requerido")
+    private String token;
+}
@@ -0,0 +1,20 @@
+package com.fram.vigilapp.dto;
+
+import lombok.*;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class UserDeviceDto {
+    private UUID id;
+    private UUID userId;
+    private String provider;
+    private String token;
+    private OffsetDateTime createdAt;
+    private OffsetDateTime lastSeenAt;
+}
@@ -2,6 +2,7 @@ package com.fram.vigilapp.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
 
 import java.time.OffsetDateTime;
 import java.util.UUID;
@@ -31,7 +32,7 @@ public class Notification {
     private String channel; // PUSH | EMAIL | SMS
 
     @Column(name = "status", columnDefinition = "text")
-    private String status; // QUEUED | SENT | DELIVERED | FAILED
+    private String status; // QUEUED | SENDING | SENT | DELIVERED | FAILED | NO_DEVICE
 
     @Column(name = "sent_at", columnDefinition = "timestamptz")
     private OffsetDateTime sentAt;
@@ -45,6 +46,20 @@ public class Notification {
     @Column(name = "deleted_at", columnDefinition = "timestamptz")
     private OffsetDateTime deletedAt;
 
-    @Column(name = "created_at", columnDefinition = "timestamptz")
+    // Reintentos de entrega: intentos fallidos y cuándo volver a intentarlo (null = no reintentar).
+    // En SENDING, next_attempt_at es el vencimiento de la reserva de PushDispatcher
+    @Column(name = "attempts", nullable = false)
+    private Integer attempts;
+
+    @Column(name = "next_attempt_at", columnDefinition = "timestamptz")
+    private OffsetDateTime nextAttemptAt;
+
+    // Resumen de varias alertas agrupadas (alert es la más reciente); null si es una sola
+    @Column(name = "digest_alert_ids", columnDefinition = "uuid[]")
+    private UUID[] digestAlertIds;
+
+    // Clave de partición: forma parte de la PK (id, created_at) en la base de datos
+    @CreationTimestamp
+    @Column(name = "created_at", columnDefinition = "timestamptz", nullable = false, updatable = false)
     private OffsetDateTime createdAt;
 }
@@ -0,0 +1,53 @@
+package com.fram.vigilapp.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+@Entity
+@Setter
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Table(name = "outbox_events")
+public class OutboxEvent {
+    @Id
+    @GeneratedValue
+    @Column(columnDefinition = "UUID")
+    private UUID id;
+
+    @Column(name = "event_type", columnDefinition = "text", nullable = false)
+    private String eventType; // ALERT_CREATED
+
+    @Column(name = "aggregate_id", columnDefinition = "UUID", nullable = false)
+    private UUID aggregateId;
+
+    @Column(name = "payload", columnDefinition = "text")
+    private String payload; // JSON
+
+    @Column(name = "status", columnDefinition = "text", nullable = false)
+    private String status; // PENDING | PROCESSING | DONE | FAILED
+
+    @Column(name = "attempts", nullable = false)
+    private Integer attempts;
+
+    @Column(name = "available_at", columnDefinition = "timestamptz", nullable = false)
+    private OffsetDateTime availableAt;
+
+    @Column(name = "locked_until", columnDefinition = "timestamptz")
+    private OffsetDateTime lockedUntil;
+
+    @Column(name = "last_error", columnDefinition = "text")
+    private String lastError;
+
+    @CreationTimestamp
+    @Column(name = "created_at", columnDefinition = "timestamptz", nullable = false, updatable = false)
+    private OffsetDateTime createdAt;
+
+    @Column(name = "processed_at", columnDefinition = "timestamptz")
+    private OffsetDateTime processedAt;
+}
@@ -0,0 +1,49 @@
+package com.fram.vigilapp.event;
+
+import com.fram.vigilapp.dto.AlertDto;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Evento publicado por AlertServiceImpl cada vez que una alerta se crea,
+ * cambia de estado o se elimina. Los índices en memoria lo escuchan
+ * después del commit para mantenerse sincronizados con la base de datos.
+ */
+@Getter
+@AllArgsConstructor
+public class AlertChangedEvent {
+
+    private final AlertDto alert;
+
+    // Estado anterior de la alerta (null si la alerta se acaba de crear)
+    private final String previousStatus;
+
+    private final boolean deleted;
+
+    public static AlertChangedEvent created(AlertDto alert) {
+        return new AlertChangedEvent(alert, null, false);
+    }
+
+    public static AlertChangedEvent statusChanged(AlertDto alert, String previousStatus) {
+        return new AlertChangedEvent(alert, previousStatus, false);
+    }
+
+    public static AlertChangedEvent deleted(AlertDto alert) {
+        return new AlertChangedEvent(alert, alert.getStatus(), true);
+    }
+
+    /**
+     * Estado actual de la alerta (null si fue eliminada)
+     */
+    public String getCurrentStatus() {
+        return deleted ? null : alert.getStatus();
+    }
+
+    public boolean wasActive() {
+        return "ACTIVE".equals(previousStatus);
+    }
+
+    public boolean isActive() {
+        return "ACTIVE".equals(getCurrentStatus());
+    }
+}
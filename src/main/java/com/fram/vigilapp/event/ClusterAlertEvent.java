@@ -0,0 +1,51 @@
+package com.fram.vigilapp.event;
+
+import com.fram.vigilapp.dto.AlertDto;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Evento de alerta que se reparte a todas las instancias por ClusterEventBus.
+ * Cada instancia lo recibe una vez como evento de Spring y lo empareja solo con
+ * sus propias sesiones WebSocket (ver AlertNotificationServiceImpl).
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class ClusterAlertEvent {
+
+    public static final String NEW_ALERT = "NEW_ALERT";
+    public static final String ALERT_EXPIRED = "ALERT_EXPIRED";
+
+    private String type;
+    private AlertDto alert;
+
+    public static ClusterAlertEvent newAlert(AlertDto alert) {
+        return new ClusterAlertEvent(NEW_ALERT, slim(alert));
+    }
+
+    public static ClusterAlertEvent expired(AlertDto alert) {
+        return new ClusterAlertEvent(ALERT_EXPIRED, slim(alert));
+    }
+
+    /**
+     * Solo los campos que usan el emparejamiento y los frames, para que el evento
+     * sea pequeño al cruzar entre instancias
+     */
+    private static AlertDto slim(AlertDto alert) {
+        return AlertDto.builder()
+                .id(alert.getId())
+                .createdByUserId(alert.getCreatedByUserId())
+                .createdByUserName(alert.getCreatedByUserName())
+                .category(alert.getCategory())
+                .status(alert.getStatus())
+                .title(alert.getTitle())
+                .description(alert.getDescription())
+                .latitude(alert.getLatitude())
+                .longitude(alert.getLongitude())
+                .build();
+    }
+}
@@ -0,0 +1,37 @@
+package com.fram.vigilapp.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Evento publicado por NotificationServiceImpl cuando cambian las notificaciones
+ * no leídas o no entregadas de uno o varios usuarios. Lleva solo los incrementos;
+ * NotificationCounterCache los aplica después del commit.
+ */
+@Getter
+@AllArgsConstructor
+public class NotificationCountsChangedEvent {
+
+    private final Collection<UUID> userIds;
+    private final int unreadDelta;
+    private final int undeliveredDelta;
+
+    /**
+     * Notificaciones nuevas (QUEUED y sin leer), una por usuario
+     */
+    public static NotificationCountsChangedEvent created(Collection<UUID> userIds) {
+        return new NotificationCountsChangedEvent(userIds, 1, 1);
+    }
+
+    public static NotificationCountsChangedEvent of(UUID userId, int unreadDelta, int undeliveredDelta) {
+        return new NotificationCountsChangedEvent(List.of(userId), unreadDelta, undeliveredDelta);
+    }
+
+    public boolean isEmpty() {
+        return userIds.isEmpty() || (unreadDelta == 0 && undeliveredDelta == 0);
+    }
+}
@@ -0,0 +1,39 @@
+package com.fram.vigilapp.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.locationtech.jts.geom.Polygon;
+
+import java.util.UUID;
+
+/**
+ * Evento publicado por UserZoneServiceImpl cuando un usuario crea, actualiza o
+ * elimina su zona. Las estructuras en memoria que dependen de las zonas lo
+ * escuchan después del commit.
+ */
+@Getter
+@AllArgsConstructor
+public class UserZoneChangedEvent {
+
+    private final UUID userId;
+
+    // Polígono de la zona (null si se eliminó)
+    private final Polygon geometry;
+
+    private final Double centerLatitude;
+    private final Double centerLongitude;
+    private final Integer radiusM;
+
+    public static UserZoneChangedEvent saved(UUID userId, Polygon geometry,
+                                             Double centerLatitude, Double centerLongitude, Integer radiusM) {
+        return new UserZoneChangedEvent(userId, geometry, centerLatitude, centerLongitude, radiusM);
+    }
+
+    public static UserZoneChangedEvent deleted(UUID userId) {
+        return new UserZoneChangedEvent(userId, null, null, null, null);
+    }
+
+    public boolean isDeleted() {
+        return geometry == null;
+    }
+}
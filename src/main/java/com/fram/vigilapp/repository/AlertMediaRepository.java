@@ -6,6 +6,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -13,4 +14,11 @@ public interface AlertMediaRepository extends JpaRepository<AlertMedia, AlertMed
 
     @Query("SELECT am FROM AlertMedia am JOIN FETCH am.media WHERE am.alert.id = :alertId")
     List<AlertMedia> findByAlertId(@Param("alertId") UUID alertId);
+
+    /**
+     * Media de varias alertas en una sola consulta.
+     * Cada fila es [alertId (UUID), media (Media)]
+     */
+    @Query("SELECT am.alert.id, m FROM AlertMedia am JOIN am.media m WHERE am.alert.id IN :alertIds")
+    List<Object[]> findMediaByAlertIds(@Param("alertIds") Collection<UUID> alertIds);
 }
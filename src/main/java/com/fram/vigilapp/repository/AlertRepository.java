@@ -1,7 +1,6 @@
 package com.fram.vigilapp.repository;
 
 import com.fram.vigilapp.entity.Alert;
-import org.locationtech.jts.geom.Point;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -9,31 +8,43 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.time.OffsetDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
-public interface AlertRepository extends JpaRepository<Alert, UUID> {
+public interface AlertRepository extends JpaRepository<Alert, UUID>, AlertRepositoryCustom {
 
-    @Query(value = "SELECT a.*, ST_Distance(a.geometry::geography, ST_SetSRID(ST_MakePoint(:longitude, :latitude), 4326)::geography) as distance " +
+    /*
+     * alerts.geometry ya es geography: no se castea la columna para que las
+     * consultas puedan usar los índices GiST (ver QueryPlanCheck).
+     */
+    String ACTIVE_WITHIN_RADIUS_SQL = "SELECT a.*, ST_Distance(a.geometry, ST_SetSRID(ST_MakePoint(:longitude, :latitude), 4326)::geography) as distance " +
             "FROM alerts a " +
             "WHERE a.status = 'ACTIVE' " +
-            "AND ST_DWithin(a.geometry::geography, ST_SetSRID(ST_MakePoint(:longitude, :latitude), 4326)::geography, :radiusM) " +
-            "ORDER BY distance",
-            nativeQuery = true)
+            "AND ST_DWithin(a.geometry, ST_SetSRID(ST_MakePoint(:longitude, :latitude), 4326)::geography, :radiusM) " +
+            "ORDER BY distance";
+
+    String ALL_WITHIN_RADIUS_SQL = "SELECT a.*, ST_Distance(a.geometry, ST_SetSRID(ST_MakePoint(:longitude, :latitude), 4326)::geography) as distance " +
+            "FROM alerts a " +
+            "WHERE ST_DWithin(a.geometry, ST_SetSRID(ST_MakePoint(:longitude, :latitude), 4326)::geography, :radiusM) " +
+            "ORDER BY distance";
+
+    // Usa el índice de expresión idx_alerts_active_bbox sobre (geometry::geometry)
+    String ACTIVE_IN_BOUNDS_SQL = "SELECT a.* FROM alerts a " +
+            "WHERE a.status = 'ACTIVE' " +
+            "AND ST_Within(a.geometry::geometry, ST_MakeEnvelope(:minLon, :minLat, :maxLon, :maxLat, 4326))";
+
+    @Query(value = ACTIVE_WITHIN_RADIUS_SQL, nativeQuery = true)
     List<Alert> findActiveAlertsWithinRadius(@Param("latitude") Double latitude,
                                              @Param("longitude") Double longitude,
                                              @Param("radiusM") Integer radiusM);
 
-    @Query(value = "SELECT a.*, ST_Distance(a.geometry::geography, ST_SetSRID(ST_MakePoint(:longitude, :latitude), 4326)::geography) as distance " +
-            "FROM alerts a " +
-            "WHERE ST_DWithin(a.geometry::geography, ST_SetSRID(ST_MakePoint(:longitude, :latitude), 4326)::geography, :radiusM) " +
-            "ORDER BY distance",
-            nativeQuery = true)
+    @Query(value = ALL_WITHIN_RADIUS_SQL, nativeQuery = true)
     List<Alert> findAllAlertsWithinRadius(@Param("latitude") Double latitude,
                                           @Param("longitude") Double longitude,
                                           @Param("radiusM") Integer radiusM);
 
-    @Query(value = "SELECT ST_Distance(a.geometry::geography, ST_SetSRID(ST_MakePoint(:longitude, :latitude), 4326)::geography) " +
+    @Query(value = "SELECT ST_Distance(a.geometry, ST_SetSRID(ST_MakePoint(:longitude, :latitude), 4326)::geography) " +
             "FROM alerts a " +
             "WHERE a.id = :alertId",
             nativeQuery = true)
@@ -57,13 +68,46 @@ public interface AlertRepository extends JpaRepository<Alert, UUID> {
      */
     Page<Alert> findByStatusIn(List<String> statuses, Pageable pageable);
 
+    long countByStatusIn(List<String> statuses);
+
     /**
-     * Get alerts within a geographic bounding box for heatmap
+     * Últimas alertas ACTIVE/RESOLVED (usa idx_alerts_recent)
      */
     @Query(value = "SELECT a.* FROM alerts a " +
-            "WHERE a.status = 'ACTIVE' " +
-            "AND ST_Within(a.geometry::geometry, ST_MakeEnvelope(:minLon, :minLat, :maxLon, :maxLat, 4326))",
+            "WHERE a.status IN ('ACTIVE', 'RESOLVED') " +
+            "ORDER BY a.created_at DESC, a.id DESC " +
+            "LIMIT :limit",
             nativeQuery = true)
+    List<Alert> findRecent(@Param("limit") int limit);
+
+    /**
+     * Una página de alertas ACTIVE/RESOLVED por OFFSET, para las páginas que el buffer
+     * en memoria no cubre (usa idx_alerts_recent)
+     */
+    @Query(value = "SELECT a.* FROM alerts a " +
+            "WHERE a.status IN ('ACTIVE', 'RESOLVED') " +
+            "ORDER BY a.created_at DESC, a.id DESC " +
+            "OFFSET :offset LIMIT :limit",
+            nativeQuery = true)
+    List<Alert> findRecentPage(@Param("offset") long offset, @Param("limit") int limit);
+
+    /**
+     * Alertas ACTIVE/RESOLVED anteriores a (createdAt, id), para paginación por cursor
+     */
+    @Query(value = "SELECT a.* FROM alerts a " +
+            "WHERE a.status IN ('ACTIVE', 'RESOLVED') " +
+            "AND (a.created_at, a.id) < (:createdAt, :id) " +
+            "ORDER BY a.created_at DESC, a.id DESC " +
+            "LIMIT :limit",
+            nativeQuery = true)
+    List<Alert> findRecentBefore(@Param("createdAt") OffsetDateTime createdAt,
+                                 @Param("id") UUID id,
+                                 @Param("limit") int limit);
+
+    /**
+     * Get alerts within a geographic bounding box for heatmap
+     */
+    @Query(value = ACTIVE_IN_BOUNDS_SQL, nativeQuery = true)
     List<Alert> findAlertsInBounds(
             @Param("minLat") Double minLat,
             @Param("minLon") Double minLon,
@@ -84,6 +128,29 @@ public interface AlertRepository extends JpaRepository<Alert, UUID> {
      */
     List<Alert> findByCreatedAtBetweenOrderByCreatedAtDesc(OffsetDateTime dateFrom, OffsetDateTime dateTo);
 
+    /**
+     * Hourly alert counts grouped by city, category, status and verification status.
+     * Each row is [epochHour (Number), cityId (UUID), category, status, verificationStatus, count (Number)]
+     */
+    @Query(value = "SELECT FLOOR(EXTRACT(EPOCH FROM a.created_at) / 3600) AS epoch_hour, " +
+            "a.city_id, a.category, a.status, a.verification_status, COUNT(*) " +
+            "FROM alerts a " +
+            "WHERE a.created_at >= :dateFrom " +
+            "GROUP BY 1, 2, 3, 4, 5",
+            nativeQuery = true)
+    List<Object[]> countHourlyRollups(@Param("dateFrom") OffsetDateTime dateFrom);
+
+    /**
+     * Marca como EXPIRED las alertas indicadas que sigan ACTIVE.
+     * Devuelve solo los ids que realmente cambiaron de estado (RETURNING, por eso
+     * se ejecuta como consulta y no como @Modifying). Requiere transacción.
+     */
+    @Query(value = "UPDATE alerts SET status = 'EXPIRED', updated_at = NOW() " +
+            "WHERE id IN (:ids) AND status = 'ACTIVE' " +
+            "RETURNING id",
+            nativeQuery = true)
+    List<UUID> expireActiveAlerts(@Param("ids") Collection<UUID> ids);
+
     /**
      * Count alerts by verification status
      */
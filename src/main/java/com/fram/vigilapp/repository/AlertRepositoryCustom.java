@@ -0,0 +1,30 @@
+package com.fram.vigilapp.repository;
+
+import com.fram.vigilapp.entity.Alert;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+
+public interface AlertRepositoryCustom {
+
+    /**
+     * Dynamic search evaluated entirely in the database.
+     * Null filters are ignored. Results are ordered by (created_at, id) descending
+     * and start strictly after the keyset cursor when one is given.
+     */
+    List<Alert> searchAlerts(
+            String query,
+            String category,
+            String status,
+            String verificationStatus,
+            UUID cityId,
+            Integer minRadiusM,
+            Integer maxRadiusM,
+            OffsetDateTime dateFrom,
+            OffsetDateTime dateTo,
+            OffsetDateTime cursorCreatedAt,
+            UUID cursorId,
+            int limit
+    );
+}
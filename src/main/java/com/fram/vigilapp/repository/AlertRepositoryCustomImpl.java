@@ -0,0 +1,91 @@
+package com.fram.vigilapp.repository;
+
+import com.fram.vigilapp.entity.Alert;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+
+import java.time.OffsetDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+public class AlertRepositoryCustomImpl implements AlertRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<Alert> searchAlerts(
+            String query,
+            String category,
+            String status,
+            String verificationStatus,
+            UUID cityId,
+            Integer minRadiusM,
+            Integer maxRadiusM,
+            OffsetDateTime dateFrom,
+            OffsetDateTime dateTo,
+            OffsetDateTime cursorCreatedAt,
+            UUID cursorId,
+            int limit) {
+
+        StringBuilder sql = new StringBuilder("SELECT a.* FROM alerts a WHERE 1 = 1");
+        Map<String, Object> params = new HashMap<>();
+
+        // Texto libre contra el índice GIN de search_vector (configuración en español)
+        if (query != null && !query.isBlank()) {
+            sql.append(" AND a.search_vector @@ plainto_tsquery('spanish', :query)");
+            params.put("query", query);
+        }
+        if (category != null) {
+            sql.append(" AND a.category = :category");
+            params.put("category", category);
+        }
+        if (status != null) {
+            sql.append(" AND a.status = :status");
+            params.put("status", status);
+        }
+        if (verificationStatus != null) {
+            sql.append(" AND a.verification_status = :verificationStatus");
+            params.put("verificationStatus", verificationStatus);
+        }
+        if (cityId != null) {
+            sql.append(" AND a.city_id = :cityId");
+            params.put("cityId", cityId);
+        }
+        if (minRadiusM != null) {
+            sql.append(" AND a.radius_m >= :minRadiusM");
+            params.put("minRadiusM", minRadiusM);
+        }
+        if (maxRadiusM != null) {
+            sql.append(" AND a.radius_m <= :maxRadiusM");
+            params.put("maxRadiusM", maxRadiusM);
+        }
+        if (dateFrom != null) {
+            sql.append(" AND a.created_at > :dateFrom");
+            params.put("dateFrom", dateFrom);
+        }
+        if (dateTo != null) {
+            sql.append(" AND a.created_at < :dateTo");
+            params.put("dateTo", dateTo);
+        }
+
+        // Paginación keyset sobre (created_at, id), servida por idx_alerts_created_at_id
+        if (cursorCreatedAt != null && cursorId != null) {
+            sql.append(" AND (a.created_at, a.id) < (:cursorCreatedAt, :cursorId)");
+            params.put("cursorCreatedAt", cursorCreatedAt);
+            params.put("cursorId", cursorId);
+        }
+
+        sql.append(" ORDER BY a.created_at DESC, a.id DESC LIMIT :limit");
+        params.put("limit", limit);
+
+        Query nativeQuery = entityManager.createNativeQuery(sql.toString(), Alert.class);
+        params.forEach(nativeQuery::setParameter);
+
+        return nativeQuery.getResultList();
+    }
+}
@@ -4,14 +4,142 @@ import com.fram.vigilapp.entity.Notification;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.time.OffsetDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
 public interface NotificationRepository extends JpaRepository<Notification, UUID> {
 
+    // Coinciden con los predicados de los índices parciales idx_notifications_user_* (ver QueryPlanCheck)
+    String COUNT_UNDELIVERED_SQL = "SELECT COUNT(*) FROM notifications n " +
+            "WHERE n.user_id = :userId AND n.status IN ('QUEUED', 'SENDING', 'SENT')";
+
+    String COUNT_UNREAD_SQL = "SELECT COUNT(*) FROM notifications n " +
+            "WHERE n.user_id = :userId AND n.deleted_at IS NULL AND n.read_at IS NULL";
+
+    /**
+     * Inserta en una sola sentencia una notificación por cada usuario ACTIVE cuya zona
+     * contiene el punto de la alerta (salvo el creador y quien ya la tenga, para que
+     * reintentar sea idempotente). Devuelve los destinatarios; se ejecuta como consulta
+     * por el RETURNING, así que requiere transacción.
+     */
+    @Query(value = "INSERT INTO notifications (alert_id, user_id, channel, status, created_at) " +
+            "SELECT :alertId, u.id, :channel, 'QUEUED', NOW() " +
+            "FROM user_zones uz " +
+            "JOIN users u ON u.id = uz.user_id " +
+            "WHERE ST_Intersects(uz.geometry, ST_SetSRID(ST_MakePoint(:longitude, :latitude), 4326)::geography) " +
+            "AND u.status = 'ACTIVE' " +
+            "AND u.id <> :creatorId " +
+            "AND NOT EXISTS (SELECT 1 FROM notifications n WHERE n.alert_id = :alertId AND n.user_id = u.id) " +
+            "RETURNING user_id",
+            nativeQuery = true)
+    List<UUID> insertForUsersInZone(@Param("alertId") UUID alertId,
+                                    @Param("creatorId") UUID creatorId,
+                                    @Param("latitude") Double latitude,
+                                    @Param("longitude") Double longitude,
+                                    @Param("channel") String channel);
+
+    /**
+     * Inserta una notificación para cada uno de los usuarios indicados que aún no
+     * la tenga. Devuelve los destinatarios; requiere transacción (RETURNING).
+     */
+    @Query(value = "INSERT INTO notifications (alert_id, user_id, channel, status, created_at) " +
+            "SELECT :alertId, u.id, :channel, 'QUEUED', NOW() " +
+            "FROM users u " +
+            "WHERE u.id IN (:userIds) " +
+            "AND NOT EXISTS (SELECT 1 FROM notifications n WHERE n.alert_id = :alertId AND n.user_id = u.id) " +
+            "RETURNING user_id",
+            nativeQuery = true)
+    List<UUID> insertForUsers(@Param("alertId") UUID alertId,
+                              @Param("userIds") Collection<UUID> userIds,
+                              @Param("channel") String channel);
+
+    /**
+     * Reserva un lote de notificaciones PUSH en QUEUED, las más antiguas primero, y las
+     * pasa a SENDING con next_attempt_at = :leaseUntil como vencimiento de la reserva.
+     * FOR UPDATE SKIP LOCKED: cada instancia toma filas distintas; los bloqueos solo duran
+     * esta transacción corta y el envío se hace después, fuera de ella.
+     * Requiere transacción (RETURNING). Columnas: [id, user_id, alert_id, title, category, description]
+     */
+    @Query(value = "UPDATE notifications n SET status = 'SENDING', next_attempt_at = :leaseUntil " +
+            "FROM (SELECT id, created_at FROM notifications " +
+            "      WHERE status = 'QUEUED' AND channel = 'PUSH' " +
+            "      ORDER BY created_at LIMIT :limit FOR UPDATE SKIP LOCKED) claimed, alerts a " +
+            "WHERE n.id = claimed.id AND n.created_at = claimed.created_at AND a.id = n.alert_id " +
+            "RETURNING n.id, n.user_id, a.id AS alert_id, a.title, a.category, a.description",
+            nativeQuery = true)
+    List<Object[]> claimQueuedPush(@Param("limit") int limit,
+                                   @Param("leaseUntil") OffsetDateTime leaseUntil);
+
+    /**
+     * Devuelve a QUEUED las notificaciones SENDING cuya reserva venció (la instancia que
+     * las tomó cayó o no terminó a tiempo) para que se vuelvan a enviar
+     */
+    @Modifying
+    @Query(value = "UPDATE notifications SET status = 'QUEUED', next_attempt_at = NULL " +
+            "WHERE status = 'SENDING' AND next_attempt_at < NOW()",
+            nativeQuery = true)
+    int releaseExpiredPushLeases();
+
+    /**
+     * Bloquea, de las notificaciones indicadas, las que siguen en SENDING con la reserva
+     * :leaseUntil; las que otra instancia recuperó o el usuario ya confirmó no aparecen.
+     * Columnas: [id, user_id]
+     */
+    @Query(value = "SELECT n.id, n.user_id FROM notifications n " +
+            "WHERE n.id IN (:ids) AND n.status = 'SENDING' AND n.next_attempt_at = :leaseUntil " +
+            "FOR UPDATE",
+            nativeQuery = true)
+    List<Object[]> lockLeasedPush(@Param("ids") Collection<UUID> ids,
+                                  @Param("leaseUntil") OffsetDateTime leaseUntil);
+
+    /**
+     * Cambio de estado en bloque (SENT o NO_DEVICE) tras un envío; libera la reserva
+     */
+    @Modifying
+    @Query("UPDATE Notification n SET n.status = :status, n.sentAt = :sentAt, n.nextAttemptAt = null " +
+            "WHERE n.id IN :ids")
+    int updateStatus(@Param("ids") Collection<UUID> ids,
+                     @Param("status") String status,
+                     @Param("sentAt") OffsetDateTime sentAt);
+
+    /**
+     * Marca como FAILED en bloque, sumando un intento y programando el siguiente con
+     * backoff exponencial (baseSeconds * 2^intentos previos). Al llegar a maxAttempts
+     * next_attempt_at queda en null y la notificación ya no se reintenta. El exponente se
+     * limita a 20 para que el intervalo no desborde con max-attempts altos. Vacía el contexto
+     * de persistencia para que una Notification cargada antes se vuelva a leer con los cambios.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "UPDATE notifications SET status = 'FAILED', attempts = attempts + 1, " +
+            "next_attempt_at = CASE WHEN attempts + 1 < :maxAttempts " +
+            "THEN NOW() + make_interval(secs => :baseSeconds * power(2, LEAST(attempts, 20))) ELSE NULL END " +
+            "WHERE id IN (:ids)",
+            nativeQuery = true)
+    int markFailedWithBackoff(@Param("ids") Collection<UUID> ids,
+                              @Param("baseSeconds") double baseSeconds,
+                              @Param("maxAttempts") int maxAttempts);
+
+    /**
+     * Devuelve a QUEUED un lote de notificaciones FAILED cuyo reintento ya venció.
+     * SKIP LOCKED: varias instancias pueden ejecutarlo a la vez sin tomar las mismas filas,
+     * y el cambio de estado es atómico, así que cada fila se reencola una sola vez.
+     * Requiere transacción (RETURNING). Columnas: [id, user_id]
+     */
+    @Query(value = "UPDATE notifications n SET status = 'QUEUED', next_attempt_at = NULL " +
+            "FROM (SELECT id, created_at FROM notifications " +
+            "      WHERE status = 'FAILED' AND channel = 'PUSH' AND next_attempt_at <= NOW() " +
+            "      ORDER BY next_attempt_at LIMIT :limit FOR UPDATE SKIP LOCKED) due " +
+            "WHERE n.id = due.id AND n.created_at = due.created_at " +
+            "RETURNING n.id, n.user_id",
+            nativeQuery = true)
+    List<Object[]> requeueDueFailed(@Param("limit") int limit);
+
     /**
      * Find all notifications for a user, ordered by creation date (newest first)
      */
@@ -48,7 +176,7 @@ public interface NotificationRepository extends JpaRepository<Notification, UUID
     /**
      * Count undelivered notifications for a user
      */
-    @Query("SELECT COUNT(n) FROM Notification n WHERE n.user.id = :userId AND n.status IN ('QUEUED', 'SENT')")
+    @Query(value = COUNT_UNDELIVERED_SQL, nativeQuery = true)
     long countUndeliveredNotifications(@Param("userId") UUID userId);
 
     /**
@@ -62,10 +190,21 @@ public interface NotificationRepository extends JpaRepository<Notification, UUID
     @Query("SELECT n FROM Notification n WHERE n.user.id = :userId AND n.deletedAt IS NULL ORDER BY n.createdAt DESC")
     Page<Notification> findByUserIdAndNotDeleted(@Param("userId") UUID userId, Pageable pageable);
 
+    /**
+     * No leídas y no entregadas de varios usuarios en una sola consulta.
+     * Columnas: [user_id, unread, undelivered]; los usuarios sin notificaciones no aparecen.
+     */
+    @Query(value = "SELECT n.user_id, " +
+            "COUNT(*) FILTER (WHERE n.deleted_at IS NULL AND n.read_at IS NULL), " +
+            "COUNT(*) FILTER (WHERE n.status IN ('QUEUED', 'SENDING', 'SENT')) " +
+            "FROM notifications n WHERE n.user_id IN (:userIds) GROUP BY n.user_id",
+            nativeQuery = true)
+    List<Object[]> countByUserIds(@Param("userIds") Collection<UUID> userIds);
+
     /**
      * Count unread notifications for a user (not deleted and not read)
      */
-    @Query("SELECT COUNT(n) FROM Notification n WHERE n.user.id = :userId AND n.deletedAt IS NULL AND n.readAt IS NULL")
+    @Query(value = COUNT_UNREAD_SQL, nativeQuery = true)
     long countUnreadNotifications(@Param("userId") UUID userId);
 
     /**
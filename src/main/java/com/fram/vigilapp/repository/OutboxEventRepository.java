@@ -0,0 +1,50 @@
+package com.fram.vigilapp.repository;
+
+import com.fram.vigilapp.entity.OutboxEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, UUID> {
+
+    /**
+     * Reclama hasta :limit eventos pendientes (o con la reserva vencida) y los marca
+     * PROCESSING durante :leaseSeconds. FOR UPDATE SKIP LOCKED permite que varios
+     * dispatchers (o nodos) reclamen en paralelo sin bloquearse ni duplicar eventos.
+     * Se ejecuta como consulta por el RETURNING; requiere transacción.
+     */
+    @Query(value = "UPDATE outbox_events SET status = 'PROCESSING', attempts = attempts + 1, " +
+            "locked_until = NOW() + make_interval(secs => :leaseSeconds) " +
+            "WHERE id IN (" +
+            "  SELECT id FROM outbox_events " +
+            "  WHERE ((status = 'PENDING' AND available_at <= NOW()) " +
+            "     OR (status = 'PROCESSING' AND locked_until < NOW())) " +
+            "  ORDER BY available_at " +
+            "  LIMIT :limit " +
+            "  FOR UPDATE SKIP LOCKED" +
+            ") RETURNING *",
+            nativeQuery = true)
+    List<OutboxEvent> claimBatch(@Param("limit") int limit, @Param("leaseSeconds") int leaseSeconds);
+
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.status = 'DONE', e.processedAt = CURRENT_TIMESTAMP, e.lockedUntil = null " +
+            "WHERE e.id = :id")
+    int markDone(@Param("id") UUID id);
+
+    @Modifying
+    @Query("UPDATE OutboxEvent e SET e.status = :status, e.availableAt = :availableAt, " +
+            "e.lockedUntil = null, e.lastError = :error WHERE e.id = :id")
+    int markFailed(@Param("id") UUID id,
+                   @Param("status") String status,
+                   @Param("availableAt") OffsetDateTime availableAt,
+                   @Param("error") String error);
+
+    @Modifying
+    @Query("DELETE FROM OutboxEvent e WHERE e.status = 'DONE' AND e.processedAt < :cutoff")
+    int deleteProcessedBefore(@Param("cutoff") OffsetDateTime cutoff);
+}
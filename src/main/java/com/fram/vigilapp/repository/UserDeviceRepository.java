@@ -0,0 +1,36 @@
+package com.fram.vigilapp.repository;
+
+import com.fram.vigilapp.entity.UserDevice;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+public interface UserDeviceRepository extends JpaRepository<UserDevice, UUID> {
+
+    Optional<UserDevice> findByToken(String token);
+
+    List<UserDevice> findByUserId(UUID userId);
+
+    /**
+     * Dispositivos de varios usuarios (para agrupar un lote de notificaciones por token)
+     */
+    @Query("SELECT d FROM UserDevice d WHERE d.user.id IN :userIds")
+    List<UserDevice> findByUserIdIn(@Param("userIds") Collection<UUID> userIds);
+
+    @Modifying
+    @Query("DELETE FROM UserDevice d WHERE d.user.id = :userId AND d.token = :token")
+    int deleteByUserIdAndToken(@Param("userId") UUID userId, @Param("token") String token);
+
+    /**
+     * Borra los tokens que el proveedor informó como inválidos
+     */
+    @Modifying
+    @Query("DELETE FROM UserDevice d WHERE d.token IN :tokens")
+    int deleteByTokenIn(@Param("tokens") Collection<String> tokens);
+}
@@ -1,7 +1,6 @@
 package com.fram.vigilapp.repository;
 
 import com.fram.vigilapp.entity.User;
-import org.locationtech.jts.geom.Point;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -12,19 +11,29 @@ import java.util.UUID;
 public interface UserRepository extends JpaRepository<User, UUID> {
     User findByEmail(String email);
 
+    /*
+     * El punto se construye como geography para comparar contra la columna
+     * user_zones.geometry sin casts y poder usar idx_user_zones_geometry.
+     */
+    String USERS_IN_ZONE_SQL = "SELECT u.* FROM users u " +
+            "INNER JOIN user_zones uz ON u.id = uz.user_id " +
+            "WHERE ST_Intersects(uz.geometry, ST_SetSRID(ST_MakePoint(:longitude, :latitude), 4326)::geography) " +
+            "AND u.status = 'ACTIVE'";
+
     /**
      * Find all users whose configured zone intersects with the given alert point
      * Uses PostGIS ST_Intersects for geospatial query
      */
-    @Query(value = "SELECT DISTINCT u.* FROM users u " +
-            "INNER JOIN user_zones uz ON u.id = uz.user_id " +
-            "WHERE ST_Intersects(uz.geometry, ST_SetSRID(:alertPoint, 4326)) " +
-            "AND u.status = 'ACTIVE'",
-            nativeQuery = true)
-    List<User> findUsersInZone(@Param("alertPoint") Point alertPoint);
+    @Query(value = USERS_IN_ZONE_SQL, nativeQuery = true)
+    List<User> findUsersInZone(@Param("latitude") Double latitude, @Param("longitude") Double longitude);
 
     /**
      * Find all active users
      */
     List<User> findByStatus(String status);
+
+    /**
+     * Count users by status
+     */
+    long countByStatus(String status);
 }
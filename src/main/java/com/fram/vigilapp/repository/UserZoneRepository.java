@@ -3,11 +3,19 @@ package com.fram.vigilapp.repository;
 import com.fram.vigilapp.entity.User;
 import com.fram.vigilapp.entity.UserZone;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 public interface UserZoneRepository extends JpaRepository<UserZone, UUID> {
     Optional<UserZone> findByUser(User user);
     Optional<UserZone> findByUserId(UUID userId);
+
+    /**
+     * [userId (UUID), geometry (Polygon), radiusM (Integer)] de todas las zonas, sin cargar los usuarios
+     */
+    @Query("SELECT uz.user.id, uz.geometry, uz.radiusM FROM UserZone uz")
+    List<Object[]> findAllZoneGeometries();
 }
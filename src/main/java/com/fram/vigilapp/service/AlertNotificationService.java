@@ -16,6 +16,11 @@ public interface AlertNotificationService {
      */
     void notifyNewAlert(Alert alert, AlertDto alertDto);
 
+    /**
+     * Avisar a todos los usuarios conectados que una alerta expiró
+     */
+    void notifyAlertExpired(AlertDto alertDto);
+
     /**
      * Registrar un usuario conectado al WebSocket
      */
@@ -1,6 +1,7 @@
 package com.fram.vigilapp.service;
 
 import com.fram.vigilapp.dto.AlertDto;
+import com.fram.vigilapp.dto.AlertSearchResultDto;
 import com.fram.vigilapp.dto.SaveAlertDto;
 import com.fram.vigilapp.entity.User;
 import org.springframework.data.domain.Page;
@@ -29,14 +30,20 @@ public interface AlertService {
     void deleteAlert(UUID alertId);
 
     /**
-     * Get recent alerts with pagination
+     * Get recent alerts (ACTIVE/RESOLVED, newest first) with pagination.
+     * If cursor is given the page number is ignored and the page starts after it.
      */
-    Page<AlertDto> getRecentAlerts(Pageable pageable);
+    Page<AlertDto> getRecentAlerts(Pageable pageable, String cursor);
 
     /**
-     * Advanced search with multiple filters
+     * Opaque cursor pointing after the given alert, for getRecentAlerts
      */
-    List<AlertDto> searchAlerts(
+    String getRecentAlertsCursor(AlertDto lastAlert);
+
+    /**
+     * Advanced search with multiple filters, paginated with an opaque keyset cursor
+     */
+    AlertSearchResultDto searchAlerts(
             String query,
             String category,
             String status,
@@ -46,7 +53,7 @@ public interface AlertService {
             Integer maxRadiusM,
             OffsetDateTime dateFrom,
             OffsetDateTime dateTo,
-            int skip,
+            String cursor,
             int limit
     );
 
@@ -61,6 +68,11 @@ public interface AlertService {
             Double gridSizeM
     );
 
+    /**
+     * Get heatmap cells for a single map tile (z/x/y, Web Mercator)
+     */
+    List<com.fram.vigilapp.dto.HeatmapPointDto> getHeatmapTile(int z, int x, int y);
+
     /**
      * Get alert statistics
      */
@@ -0,0 +1,15 @@
+package com.fram.vigilapp.service;
+
+import com.fram.vigilapp.event.ClusterAlertEvent;
+
+/**
+ * Bus de eventos entre instancias de la aplicación.
+ *
+ * publish entrega el evento una vez a cada instancia, incluida la que lo publica,
+ * como evento de Spring (ClusterAlertEvent). La implementación se elige con
+ * cluster.bus.type: local (una sola instancia) o postgres (LISTEN/NOTIFY).
+ */
+public interface ClusterEventBus {
+
+    void publish(ClusterAlertEvent event);
+}
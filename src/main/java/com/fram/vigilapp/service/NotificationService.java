@@ -1,6 +1,9 @@
 package com.fram.vigilapp.service;
 
+import com.fram.vigilapp.dto.NotificationAckResultDto;
 import com.fram.vigilapp.dto.NotificationDto;
+import com.fram.vigilapp.dto.NotificationFanoutResult;
+import com.fram.vigilapp.dto.NotificationPurgeStatusDto;
 import com.fram.vigilapp.dto.SaveNotificationDto;
 import com.fram.vigilapp.entity.Alert;
 import com.fram.vigilapp.entity.User;
@@ -40,13 +43,15 @@ public interface NotificationService {
     /**
      * Notify all users whose zone contains the alert
      * Called automatically after alert creation
+     * @return recipients of the new notification rows, for live delivery
      */
-    void notifyUsersInZone(Alert alert, String channel);
+    NotificationFanoutResult notifyUsersInZone(Alert alert, String channel);
 
     /**
      * Notify users within a specific radius from alert location
+     * @return recipients of the new notification rows, for live delivery
      */
-    void notifyUsersInRadius(Alert alert, Integer radiusM, String channel);
+    NotificationFanoutResult notifyUsersInRadius(Alert alert, Integer radiusM, String channel);
 
     /**
      * Get notifications for an alert
@@ -93,13 +98,30 @@ public interface NotificationService {
      */
     NotificationDto markAsRead(UUID notificationId);
 
+    /**
+     * Bulk acknowledgement: apply DELIVERED or READ to the user's notifications in one UPDATE
+     */
+    NotificationAckResultDto acknowledge(UUID userId, List<UUID> notificationIds, String state);
+
     /**
      * Mark all unread notifications as read for a user
      */
     int markAllAsRead(UUID userId);
 
     /**
-     * Delete old notifications (older than specified days)
+     * Delete old notifications (older than specified days).
+     * Only enqueues the work: whole partitions are dropped and the remaining rows purged in chunks in the background.
      */
     void deleteOldNotifications(int daysOld);
+
+    /**
+     * Progress of the background notification purge
+     */
+    NotificationPurgeStatusDto getPurgeStatus();
+
+    NotificationPurgeStatusDto pausePurge();
+
+    NotificationPurgeStatusDto resumePurge();
+
+    NotificationPurgeStatusDto cancelPurge();
 }
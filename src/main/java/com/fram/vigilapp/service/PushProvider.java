@@ -0,0 +1,23 @@
+package com.fram.vigilapp.service;
+
+import com.fram.vigilapp.dto.PushMessage;
+import com.fram.vigilapp.dto.PushSendResult;
+
+import java.util.List;
+
+/**
+ * Proveedor de notificaciones push (FCM, APNS, ...).
+ * PushDispatcher agrupa los mensajes por proveedor y llama a send con lotes de
+ * como máximo getMaxBatchSize mensajes.
+ */
+public interface PushProvider {
+
+    /**
+     * Si este proveedor entrega a los dispositivos registrados con ese valor de provider
+     */
+    boolean supports(String provider);
+
+    int getMaxBatchSize();
+
+    PushSendResult send(List<PushMessage> messages);
+}
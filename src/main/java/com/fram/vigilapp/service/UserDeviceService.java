@@ -0,0 +1,13 @@
+package com.fram.vigilapp.service;
+
+import com.fram.vigilapp.dto.SaveUserDeviceDto;
+import com.fram.vigilapp.dto.UserDeviceDto;
+
+import java.util.List;
+import java.util.UUID;
+
+public interface UserDeviceService {
+    UserDeviceDto registerDevice(UUID userId, SaveUserDeviceDto saveUserDeviceDto);
+    List<UserDeviceDto> getUserDevices(UUID userId);
+    void unregisterDevice(UUID userId, String token);
+}
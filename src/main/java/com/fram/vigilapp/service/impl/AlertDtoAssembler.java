@@ -0,0 +1,158 @@
+package com.fram.vigilapp.service.impl;
+
+import com.fram.vigilapp.dto.AlertDto;
+import com.fram.vigilapp.dto.MediaDto;
+import com.fram.vigilapp.entity.Alert;
+import com.fram.vigilapp.entity.AlertMedia;
+import com.fram.vigilapp.entity.City;
+import com.fram.vigilapp.entity.Media;
+import com.fram.vigilapp.entity.User;
+import com.fram.vigilapp.repository.AlertMediaRepository;
+import com.fram.vigilapp.repository.CityRepository;
+import com.fram.vigilapp.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Convierte alertas en AlertDto.
+ * Para listas carga media, creadores y ciudades con una consulta IN cada uno,
+ * de modo que una página de alertas cuesta un número constante de consultas
+ * en lugar de varias por alerta.
+ */
+@Component
+@RequiredArgsConstructor
+public class AlertDtoAssembler {
+
+    private final AlertMediaRepository alertMediaRepository;
+    private final UserRepository userRepository;
+    private final CityRepository cityRepository;
+
+    /**
+     * Convierte una sola alerta cargando su media
+     */
+    public AlertDto toDto(Alert alert, Double distance) {
+        List<Media> mediaList = alertMediaRepository.findByAlertId(alert.getId()).stream()
+                .map(AlertMedia::getMedia)
+                .collect(Collectors.toList());
+
+        return toDto(alert, distance, mediaList);
+    }
+
+    /**
+     * Convierte una sola alerta con la media ya conocida
+     */
+    public AlertDto toDto(Alert alert, Double distance, List<Media> mediaList) {
+        String creatorName = null;
+        if (!Boolean.TRUE.equals(alert.getIsAnonymous())) {
+            creatorName = fullName(alert.getCreatedByUser());
+        }
+
+        return build(alert, distance, mediaList, creatorName,
+                alert.getCity() != null ? alert.getCity().getName() : null);
+    }
+
+    public List<AlertDto> toDtos(List<Alert> alerts) {
+        return toDtos(alerts, alert -> null);
+    }
+
+    /**
+     * Convierte una lista de alertas en lote (media, creadores y ciudades en una consulta cada uno)
+     */
+    public List<AlertDto> toDtos(List<Alert> alerts, Function<Alert, Double> distanceFunction) {
+        if (alerts.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        Set<UUID> alertIds = new HashSet<>();
+        Set<UUID> creatorIds = new HashSet<>();
+        Set<UUID> cityIds = new HashSet<>();
+
+        // getId() sobre un proxy LAZY no lo inicializa, así que no genera consultas
+        for (Alert alert : alerts) {
+            alertIds.add(alert.getId());
+            if (!Boolean.TRUE.equals(alert.getIsAnonymous())) {
+                creatorIds.add(alert.getCreatedByUser().getId());
+            }
+            if (alert.getCity() != null) {
+                cityIds.add(alert.getCity().getId());
+            }
+        }
+
+        Map<UUID, List<Media>> mediaByAlert = new HashMap<>();
+        for (Object[] row : alertMediaRepository.findMediaByAlertIds(alertIds)) {
+            mediaByAlert.computeIfAbsent((UUID) row[0], k -> new ArrayList<>()).add((Media) row[1]);
+        }
+
+        Map<UUID, String> creatorNames = new HashMap<>();
+        if (!creatorIds.isEmpty()) {
+            for (User user : userRepository.findAllById(creatorIds)) {
+                creatorNames.put(user.getId(), fullName(user));
+            }
+        }
+
+        Map<UUID, String> cityNames = new HashMap<>();
+        if (!cityIds.isEmpty()) {
+            for (City city : cityRepository.findAllById(cityIds)) {
+                cityNames.put(city.getId(), city.getName());
+            }
+        }
+
+        return alerts.stream()
+                .map(alert -> build(
+                        alert,
+                        distanceFunction.apply(alert),
+                        mediaByAlert.getOrDefault(alert.getId(), List.of()),
+                        creatorNames.get(alert.getCreatedByUser().getId()),
+                        alert.getCity() != null ? cityNames.get(alert.getCity().getId()) : null))
+                .collect(Collectors.toList());
+    }
+
+    private String fullName(User user) {
+        return user.getFirstName() + " " + user.getLastName();
+    }
+
+    private AlertDto build(Alert alert, Double distance, List<Media> mediaList, String creatorName, String cityName) {
+        String createdByUserName = null;
+        if (!Boolean.TRUE.equals(alert.getIsAnonymous())) {
+            createdByUserName = creatorName;
+        }
+
+        // Convertir Media a MediaDto
+        List<MediaDto> mediaDtoList = mediaList != null ? mediaList.stream()
+                .map(media -> MediaDto.builder()
+                        .id(media.getId())
+                        .url(media.getUrl())
+                        .mimeType(media.getMimeType())
+                        .wasBlurred(media.getForBlurAnalysis())
+                        .createdAt(media.getCreatedAt())
+                        .build())
+                .collect(Collectors.toList()) : new ArrayList<>();
+
+        return AlertDto.builder()
+                .id(alert.getId())
+                .createdByUserId(alert.getCreatedByUser().getId())
+                .createdByUserName(createdByUserName)
+                .category(alert.getCategory())
+                .status(alert.getStatus())
+                .verificationStatus(alert.getVerificationStatus())
+                .title(alert.getTitle())
+                .description(alert.getDescription())
+                .isAnonymous(alert.getIsAnonymous())
+                .address(alert.getAddress())
+                .cityId(alert.getCity() != null ? alert.getCity().getId() : null)
+                .cityName(cityName)
+                .latitude(alert.getGeometry().getY())
+                .longitude(alert.getGeometry().getX())
+                .radiusM(alert.getRadiusM())
+                .createdAt(alert.getCreatedAt())
+                .updatedAt(alert.getUpdatedAt())
+                .resolvedAt(alert.getResolvedAt())
+                .distanceFromUserM(distance)
+                .media(mediaDtoList)
+                .build();
+    }
+}
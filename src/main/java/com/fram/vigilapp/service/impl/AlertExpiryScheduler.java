@@ -0,0 +1,114 @@
+package com.fram.vigilapp.service.impl;
+
+import com.fram.vigilapp.cache.ActiveAlertListener;
+import com.fram.vigilapp.config.AlertExpiryProperties;
+import com.fram.vigilapp.dto.AlertDto;
+import com.fram.vigilapp.event.AlertChangedEvent;
+import com.fram.vigilapp.repository.AlertRepository;
+import com.fram.vigilapp.service.AlertNotificationService;
+import com.fram.vigilapp.util.HierarchicalTimingWheel;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Expira las alertas ACTIVE cuando se cumple el TTL de su categoría.
+ *
+ * Cada alta en ActiveAlertIndex (incluida la carga inicial) programa el plazo
+ * createdAt + TTL en una rueda de temporización; cada baja lo cancela. Una vez
+ * por segundo se avanza la rueda y las alertas vencidas se pasan a EXPIRED con
+ * un UPDATE por lote. Los AlertChangedEvent publicados sacan las alertas de las
+ * cachés en memoria tras el commit y después se avisa por WebSocket.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AlertExpiryScheduler implements ActiveAlertListener {
+
+    private static final long TICK_MS = 1000;
+    private static final int WHEEL_SIZE = 64;
+    private static final int WHEEL_LEVELS = 4;
+    private static final long RETRY_DELAY_MS = 60_000;
+
+    private final AlertRepository alertRepository;
+    private final AlertExpiryProperties properties;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final AlertNotificationService alertNotificationService;
+
+    private final HierarchicalTimingWheel<UUID> wheel =
+            new HierarchicalTimingWheel<>(TICK_MS, WHEEL_SIZE, WHEEL_LEVELS, System.currentTimeMillis());
+
+    // Alertas programadas, para publicar el evento sin volver a leerlas
+    private final Map<UUID, AlertDto> pending = new ConcurrentHashMap<>();
+
+    @Override
+    public void alertActivated(AlertDto alert) {
+        OffsetDateTime createdAt = alert.getCreatedAt() != null ? alert.getCreatedAt() : OffsetDateTime.now();
+        long deadlineMs = createdAt.plus(properties.ttlFor(alert.getCategory())).toInstant().toEpochMilli();
+
+        pending.put(alert.getId(), alert);
+        wheel.schedule(alert.getId(), deadlineMs);
+    }
+
+    @Override
+    public void alertDeactivated(AlertDto alert) {
+        wheel.cancel(alert.getId());
+        pending.remove(alert.getId());
+    }
+
+    @Scheduled(fixedDelay = TICK_MS)
+    public void expireDueAlerts() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+
+        List<UUID> due = wheel.advance(System.currentTimeMillis());
+        if (due.isEmpty()) {
+            return;
+        }
+
+        int batchSize = Math.max(1, properties.getBatchSize());
+        for (int from = 0; from < due.size(); from += batchSize) {
+            List<UUID> batch = due.subList(from, Math.min(from + batchSize, due.size()));
+            try {
+                List<AlertDto> expired = expireBatch(batch);
+                expired.forEach(alertNotificationService::notifyAlertExpired);
+                log.info("Expired {} of {} due alerts", expired.size(), batch.size());
+            } catch (Exception e) {
+                log.error("Error expiring alerts, retrying in {} ms: {}", RETRY_DELAY_MS, e.getMessage(), e);
+                long retryAt = System.currentTimeMillis() + RETRY_DELAY_MS;
+                batch.stream().filter(pending::containsKey).forEach(id -> wheel.schedule(id, retryAt));
+            }
+        }
+    }
+
+    private List<AlertDto> expireBatch(List<UUID> batch) {
+        return transactionTemplate.execute(status -> {
+            OffsetDateTime now = OffsetDateTime.now();
+            List<AlertDto> expired = new ArrayList<>();
+
+            // Solo cambian las que siguen ACTIVE; las demás ya tienen su propio evento
+            for (UUID alertId : alertRepository.expireActiveAlerts(batch)) {
+                AlertDto alert = pending.get(alertId);
+                if (alert == null) {
+                    continue;
+                }
+                AlertDto expiredAlert = alert.toBuilder().status("EXPIRED").updatedAt(now).build();
+                eventPublisher.publishEvent(AlertChangedEvent.statusChanged(expiredAlert, "ACTIVE"));
+                expired.add(expiredAlert);
+            }
+            return expired;
+        });
+    }
+}
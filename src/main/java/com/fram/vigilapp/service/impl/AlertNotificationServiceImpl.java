@@ -2,17 +2,20 @@ package com.fram.vigilapp.service.impl;
 
 import com.fram.vigilapp.dto.AlertDto;
 import com.fram.vigilapp.entity.Alert;
-import com.fram.vigilapp.entity.User;
-import com.fram.vigilapp.entity.UserZone;
-import com.fram.vigilapp.repository.UserRepository;
-import com.fram.vigilapp.repository.UserZoneRepository;
+import com.fram.vigilapp.event.ClusterAlertEvent;
 import com.fram.vigilapp.service.AlertNotificationService;
+import com.fram.vigilapp.service.ClusterEventBus;
 import com.fram.vigilapp.websocket.AlertWebSocketHandler;
+import com.fram.vigilapp.websocket.EventFrame;
+import com.fram.vigilapp.websocket.FrameEncoder;
+import com.fram.vigilapp.websocket.SubscriptionIndex;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.locationtech.jts.geom.Point;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -26,49 +29,96 @@ import java.util.concurrent.ConcurrentHashMap;
 public class AlertNotificationServiceImpl implements AlertNotificationService {
 
     private final AlertWebSocketHandler webSocketHandler;
-    private final UserZoneRepository userZoneRepository;
-    private final UserRepository userRepository;
+    private final SubscriptionIndex subscriptionIndex;
+    private final NotificationCoalescer notificationCoalescer;
+    private final FrameEncoder frameEncoder;
+    private final ClusterEventBus clusterEventBus;
 
     // Map de usuarioId -> Set de sessionIds (para manejar múltiples conexiones)
     // Este mapa es legacy, ahora el handler mantiene las conexiones
     private final Map<UUID, Set<String>> connectedUsers = new ConcurrentHashMap<>();
 
+    /**
+     * Las sesiones pueden estar en cualquier instancia: el evento se reparte por el bus
+     * y cada instancia lo entrega a las suyas en onClusterAlert
+     */
     @Override
     public void notifyNewAlert(Alert alert, AlertDto alertDto) {
-        Point alertPoint = alert.getGeometry();
-
-        // Obtener todos los usuarios conectados desde el handler
-        Set<UUID> connectedUserIds = webSocketHandler.getConnectedUserIds();
-
-        log.info("Notificando alerta {} a {} usuarios conectados", alert.getId(), connectedUserIds.size());
+        clusterEventBus.publish(ClusterAlertEvent.newAlert(alertDto));
+    }
 
-        // Notificar a cada usuario conectado
-        for (UUID userId : connectedUserIds) {
-            // No notificar al creador de la alerta
-            if (userId.equals(alert.getCreatedByUser().getId())) {
-                log.debug("Omitiendo notificación al creador de la alerta: {}", userId);
-                continue;
-            }
+    @Override
+    public void notifyAlertExpired(AlertDto alertDto) {
+        clusterEventBus.publish(ClusterAlertEvent.expired(alertDto));
+    }
 
-            // Verificar si el usuario tiene zona configurada
-            UserZone userZone = userZoneRepository.findByUserId(userId).orElse(null);
+    /**
+     * Evento recibido del bus (una vez por instancia): se empareja solo con las sesiones locales
+     */
+    @EventListener
+    public void onClusterAlert(ClusterAlertEvent event) {
+        if (ClusterAlertEvent.NEW_ALERT.equals(event.getType())) {
+            deliverNewAlert(event.getAlert());
+        } else if (ClusterAlertEvent.ALERT_EXPIRED.equals(event.getType())) {
+            deliverAlertExpired(event.getAlert());
+        }
+    }
 
-            // Si tiene zona, verificar si la alerta está dentro
-            if (userZone != null) {
-                // Usar PostGIS: ST_Intersects para verificar si alerta está en zona
-                boolean isInZone = userZone.getGeometry().intersects(alertPoint);
+    private void deliverNewAlert(AlertDto alertDto) {
+        // Una sola consulta al índice de suscripciones; excluye las sesiones del creador
+        List<String> sessionIds = subscriptionIndex.match(alertDto);
+        if (sessionIds.isEmpty()) {
+            log.debug("Ninguna sesión suscrita a la zona de la alerta {}", alertDto.getId());
+            return;
+        }
 
-                if (isInZone) {
-                    log.info("Alerta {} está en la zona del usuario {}, enviando notificación", alert.getId(), userId);
-                    // Enviar notificación solo a este usuario
-                    sendAlertNotificationToUser(userId, alertDto);
-                } else {
-                    log.debug("Alerta {} NO está en la zona del usuario {}", alert.getId(), userId);
+        // Fuera de las categorías urgentes, las sesiones con ventana abierta reciben luego un resumen
+        List<String> immediate = sessionIds;
+        if (notificationCoalescer.appliesTo(alertDto.getCategory())) {
+            immediate = new ArrayList<>();
+            for (String sessionId : sessionIds) {
+                if (notificationCoalescer.offerFrame(sessionId, alertDto)) {
+                    immediate.add(sessionId);
                 }
-            } else {
-                log.debug("Usuario {} no tiene zona configurada", userId);
             }
         }
+
+        // Se serializa una vez y el mismo frame se encola en todas las sesiones
+        EventFrame frame = frameEncoder.encode(buildNewAlertMessage(alertDto));
+        int sent = webSocketHandler.sendFrame(immediate, frame);
+        log.info("Alerta {} enviada a {} de {} sesiones suscritas ({} en resumen)",
+                alertDto.getId(), sent, sessionIds.size(), sessionIds.size() - immediate.size());
+    }
+
+    /**
+     * Envía los frames acumulados de las ventanas cerradas: NEW_ALERT si es una sola
+     * alerta, ALERT_DIGEST si son varias. Las sesiones con el mismo contenido comparten
+     * la serialización.
+     */
+    @Scheduled(fixedDelay = 1000)
+    public void flushCoalescedFrames() {
+        Map<List<AlertDto>, List<String>> sessionsByDigest = new HashMap<>();
+        notificationCoalescer.drainExpiredFrames().forEach((sessionId, alerts) ->
+                sessionsByDigest.computeIfAbsent(alerts, k -> new ArrayList<>()).add(sessionId));
+
+        sessionsByDigest.forEach((alerts, sessionIds) -> {
+            Map<String, Object> message = alerts.size() == 1
+                    ? buildNewAlertMessage(alerts.get(0))
+                    : buildDigestMessage(alerts);
+            webSocketHandler.sendFrame(sessionIds, frameEncoder.encode(message));
+        });
+    }
+
+    private void deliverAlertExpired(AlertDto alertDto) {
+        Map<String, Object> message = new HashMap<>();
+        message.put("event", "ALERT_EXPIRED");
+        message.put("alertId", alertDto.getId());
+        message.put("alertCategory", alertDto.getCategory());
+        message.put("latitude", alertDto.getLatitude());
+        message.put("longitude", alertDto.getLongitude());
+        message.put("timestamp", System.currentTimeMillis());
+
+        webSocketHandler.broadcastFrame(frameEncoder.encode(message));
     }
 
     @Override
@@ -95,60 +145,56 @@ public class AlertNotificationServiceImpl implements AlertNotificationService {
     }
 
     /**
-     * Enviar notificación a un usuario específico
+     * Mensaje NEW_ALERT con los detalles de la alerta
      */
-    private void sendAlertNotificationToUser(UUID userId, AlertDto alertDto) {
-        try {
-            // Construir mensaje con detalles de la alerta
-            Map<String, Object> message = new HashMap<>();
-            message.put("event", "NEW_ALERT");
-            message.put("alertId", alertDto.getId());
-            message.put("alertTitle", alertDto.getTitle());
-            message.put("alertCategory", alertDto.getCategory());
-            message.put("alertDescription", alertDto.getDescription());
-            message.put("latitude", alertDto.getLatitude());
-            message.put("longitude", alertDto.getLongitude());
-            message.put("createdByUserName", alertDto.getCreatedByUserName());
-            message.put("timestamp", System.currentTimeMillis());
-
-            // Enviar a través de WebSocket raw usando email como ID
-            var userOpt = userRepository.findById(userId);
-            if (userOpt.isPresent()) {
-                User user = userOpt.get();
-                webSocketHandler.sendAlertToUser(user.getEmail(), message);
-                log.info("✅ Notificación enviada a: {}", user.getEmail());
-            }
-        } catch (Exception e) {
-            System.err.println("Error enviando notificación a usuario " + userId + ": " + e.getMessage());
+    private Map<String, Object> buildNewAlertMessage(AlertDto alertDto) {
+        Map<String, Object> message = new HashMap<>();
+        message.put("event", "NEW_ALERT");
+        message.put("alertId", alertDto.getId());
+        message.put("alertTitle", alertDto.getTitle());
+        message.put("alertCategory", alertDto.getCategory());
+        message.put("alertDescription", alertDto.getDescription());
+        message.put("latitude", alertDto.getLatitude());
+        message.put("longitude", alertDto.getLongitude());
+        message.put("createdByUserName", alertDto.getCreatedByUserName());
+        message.put("timestamp", System.currentTimeMillis());
+        return message;
+    }
+
+    /**
+     * Mensaje ALERT_DIGEST con un resumen de varias alertas (la más reciente al final)
+     */
+    private Map<String, Object> buildDigestMessage(List<AlertDto> alerts) {
+        List<Map<String, Object>> items = new ArrayList<>(alerts.size());
+        for (AlertDto alertDto : alerts) {
+            Map<String, Object> item = buildNewAlertMessage(alertDto);
+            item.remove("event");
+            item.remove("timestamp");
+            items.add(item);
         }
+
+        Map<String, Object> message = new HashMap<>();
+        message.put("event", "ALERT_DIGEST");
+        message.put("count", alerts.size());
+        message.put("alerts", items);
+        message.put("timestamp", System.currentTimeMillis());
+        return message;
     }
 
     /**
-     * Enviar alerta a todos los usuarios conectados (sin filtro de zona)
+     * Enviar alerta a todos los usuarios conectados (sin filtro de zona).
+     * Un solo frame para todos, sin consultar cada usuario en la base de datos.
      */
     public void broadcastAlert(AlertDto alertDto) {
         try {
-            Map<String, Object> message = new HashMap<>();
-            message.put("event", "NEW_ALERT");
-            message.put("alertId", alertDto.getId());
-            message.put("alertTitle", alertDto.getTitle());
-            message.put("alertCategory", alertDto.getCategory());
-            message.put("alertDescription", alertDto.getDescription());
-            message.put("latitude", alertDto.getLatitude());
-            message.put("longitude", alertDto.getLongitude());
-            message.put("createdByUserName", alertDto.getCreatedByUserName());
-            message.put("timestamp", System.currentTimeMillis());
+            EventFrame frame = frameEncoder.encode(buildNewAlertMessage(alertDto));
 
             // Enviar a todos los usuarios conectados
             for (UUID userId : connectedUsers.keySet()) {
-                var userOpt = userRepository.findById(userId);
-                if (userOpt.isPresent()) {
-                    User user = userOpt.get();
-                    webSocketHandler.sendAlertToUser(user.getEmail(), message);
-                }
+                webSocketHandler.sendFrameToUser(userId, frame);
             }
         } catch (Exception e) {
-            System.err.println("Error broadcasting alert: " + e.getMessage());
+            log.error("Error broadcasting alert: {}", e.getMessage(), e);
         }
     }
 }
@@ -1,44 +1,60 @@
 package com.fram.vigilapp.service.impl;
 
+import com.fram.vigilapp.cache.ActiveAlertIndex;
+import com.fram.vigilapp.cache.AlertStatsRollup;
+import com.fram.vigilapp.cache.HeatmapTilePyramid;
+import com.fram.vigilapp.cache.RecentAlertsBuffer;
+import com.fram.vigilapp.cache.UserCountCache;
+import com.fram.vigilapp.cache.ZoneAlertFeedStore;
 import com.fram.vigilapp.dto.AlertDto;
+import com.fram.vigilapp.dto.AlertSearchResultDto;
 import com.fram.vigilapp.dto.AlertStatsDto;
 import com.fram.vigilapp.dto.HeatmapPointDto;
-import com.fram.vigilapp.dto.MediaDto;
 import com.fram.vigilapp.dto.SaveAlertDto;
 import com.fram.vigilapp.entity.*;
+import com.fram.vigilapp.event.AlertChangedEvent;
 import com.fram.vigilapp.repository.*;
 import com.fram.vigilapp.service.AlertService;
-import com.fram.vigilapp.service.AlertNotificationService;
 import com.fram.vigilapp.service.MediaService;
-import com.fram.vigilapp.service.NotificationService;
+import com.fram.vigilapp.util.GeoUtil;
 import lombok.RequiredArgsConstructor;
 import org.locationtech.jts.geom.Coordinate;
 import org.locationtech.jts.geom.GeometryFactory;
 import org.locationtech.jts.geom.Point;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.nio.charset.StandardCharsets;
 import java.time.OffsetDateTime;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class AlertServiceImpl implements AlertService {
 
     private final AlertRepository alertRepository;
-    private final UserZoneRepository userZoneRepository;
     private final CityRepository cityRepository;
-    private final UserRepository userRepository;
-    private final NotificationService notificationService;
-    private final AlertNotificationService alertNotificationService;
     private final MediaService mediaService;
     private final AlertMediaRepository alertMediaRepository;
+    private final AlertDtoAssembler alertDtoAssembler;
+    private final ActiveAlertIndex activeAlertIndex;
+    private final HeatmapTilePyramid heatmapTilePyramid;
+    private final AlertStatsRollup alertStatsRollup;
+    private final RecentAlertsBuffer recentAlertsBuffer;
+    private final UserCountCache userCountCache;
+    private final ZoneAlertFeedStore zoneAlertFeedStore;
+    private final GeoUtil geoUtil;
+    private final ApplicationEventPublisher eventPublisher;
+    private final OutboxDispatcher outboxDispatcher;
     private final GeometryFactory geometryFactory = new GeometryFactory();
 
     @Override
@@ -71,23 +87,11 @@ public class AlertServiceImpl implements AlertService {
                 .build();
 
         alert = alertRepository.save(alert);
-        AlertDto alertDto = mapToDto(alert, null);
+        AlertDto alertDto = alertDtoAssembler.toDto(alert, null);
+        eventPublisher.publishEvent(AlertChangedEvent.created(alertDto));
 
-        // Notify users in zone (asynchronously in a real implementation)
-        try {
-            notificationService.notifyUsersInZone(alert, "PUSH");
-        } catch (Exception e) {
-            // Log error but don't fail alert creation if notifications fail
-            System.err.println("Error saving notifications for alert: " + e.getMessage());
-        }
-
-        // Enviar notificación por WebSocket en tiempo real a usuarios conectados
-        try {
-            alertNotificationService.notifyNewAlert(alert, alertDto);
-        } catch (Exception e) {
-            // Log error but don't fail alert creation
-            System.err.println("Error sending WebSocket notification for alert: " + e.getMessage());
-        }
+        // Notificaciones en zona y WebSocket se procesan después del commit (outbox)
+        outboxDispatcher.enqueueAlertCreated(alert.getId(), "PUSH");
 
         return alertDto;
     }
@@ -147,21 +151,11 @@ public class AlertServiceImpl implements AlertService {
             }
         }
 
-        AlertDto alertDto = mapToDto(alert, null, mediaList);
+        AlertDto alertDto = alertDtoAssembler.toDto(alert, null, mediaList);
+        eventPublisher.publishEvent(AlertChangedEvent.created(alertDto));
 
-        // Notify users in zone
-        try {
-            notificationService.notifyUsersInZone(alert, "PUSH");
-        } catch (Exception e) {
-            System.err.println("Error saving notifications for alert: " + e.getMessage());
-        }
-
-        // Enviar notificación por WebSocket
-        try {
-            alertNotificationService.notifyNewAlert(alert, alertDto);
-        } catch (Exception e) {
-            System.err.println("Error sending WebSocket notification for alert: " + e.getMessage());
-        }
+        // Notificaciones en zona y WebSocket se procesan después del commit (outbox)
+        outboxDispatcher.enqueueAlertCreated(alert.getId(), "PUSH");
 
         return alertDto;
     }
@@ -172,42 +166,29 @@ public class AlertServiceImpl implements AlertService {
         Alert alert = alertRepository.findById(alertId)
                 .orElseThrow(() -> new RuntimeException("Alerta no encontrada"));
 
-        return mapToDto(alert, null);
+        return alertDtoAssembler.toDto(alert, null);
     }
 
     @Override
     @Transactional(readOnly = true)
     public List<AlertDto> getAlertsNearLocation(Double latitude, Double longitude, Integer radiusM, boolean activeOnly) {
-        List<Alert> alerts;
-
+        // Las alertas activas se resuelven completamente desde el índice en memoria
         if (activeOnly) {
-            alerts = alertRepository.findActiveAlertsWithinRadius(latitude, longitude, radiusM);
-        } else {
-            alerts = alertRepository.findAllAlertsWithinRadius(latitude, longitude, radiusM);
+            return activeAlertIndex.findWithinRadius(latitude, longitude, radiusM);
         }
 
-        return alerts.stream()
-                .map(alert -> {
-                    Double distance = alertRepository.calculateDistanceFromPoint(
-                            alert.getId(), latitude, longitude
-                    );
-                    return mapToDto(alert, distance);
-                })
-                .collect(Collectors.toList());
+        List<Alert> alerts = alertRepository.findAllAlertsWithinRadius(latitude, longitude, radiusM);
+
+        // Distancia calculada en la JVM en lugar de una consulta por alerta
+        return alertDtoAssembler.toDtos(alerts, alert -> geoUtil.haversineMeters(
+                latitude, longitude, alert.getGeometry().getY(), alert.getGeometry().getX()));
     }
 
     @Override
-    @Transactional(readOnly = true)
     public List<AlertDto> getAlertsInUserZone(UUID userId) {
-        UserZone userZone = userZoneRepository.findByUserId(userId)
+        // Feed precalculado de la zona; solo se lee la zona la primera vez
+        return zoneAlertFeedStore.getFeed(userId)
                 .orElseThrow(() -> new RuntimeException("El usuario no tiene una zona configurada"));
-
-        Coordinate centroid = userZone.getGeometry().getCentroid().getCoordinate();
-        Double centerLat = centroid.y;
-        Double centerLon = centroid.x;
-        Integer radiusM = userZone.getRadiusM();
-
-        return getAlertsNearLocation(centerLat, centerLon, radiusM, true);
     }
 
     @Override
@@ -215,9 +196,7 @@ public class AlertServiceImpl implements AlertService {
     public List<AlertDto> getUserAlerts(UUID userId) {
         List<Alert> alerts = alertRepository.findByCreatedByUserIdOrderByCreatedAtDesc(userId);
 
-        return alerts.stream()
-                .map(alert -> mapToDto(alert, null))
-                .collect(Collectors.toList());
+        return alertDtoAssembler.toDtos(alerts);
     }
 
     @Override
@@ -225,9 +204,7 @@ public class AlertServiceImpl implements AlertService {
     public List<AlertDto> getAlertsByStatus(String status) {
         List<Alert> alerts = alertRepository.findByStatusOrderByCreatedAtDesc(status);
 
-        return alerts.stream()
-                .map(alert -> mapToDto(alert, null))
-                .collect(Collectors.toList());
+        return alertDtoAssembler.toDtos(alerts);
     }
 
     @Override
@@ -235,9 +212,7 @@ public class AlertServiceImpl implements AlertService {
     public List<AlertDto> getAlertsByCategoryAndStatus(String category, String status) {
         List<Alert> alerts = alertRepository.findByCategoryAndStatusOrderByCreatedAtDesc(category, status);
 
-        return alerts.stream()
-                .map(alert -> mapToDto(alert, null))
-                .collect(Collectors.toList());
+        return alertDtoAssembler.toDtos(alerts);
     }
 
     @Override
@@ -246,6 +221,7 @@ public class AlertServiceImpl implements AlertService {
         Alert alert = alertRepository.findById(alertId)
                 .orElseThrow(() -> new RuntimeException("Alerta no encontrada"));
 
+        String previousStatus = alert.getStatus();
         alert.setStatus(newStatus);
 
         if ("RESOLVED".equals(newStatus) || "CANCELLED".equals(newStatus)) {
@@ -254,7 +230,10 @@ public class AlertServiceImpl implements AlertService {
 
         alert = alertRepository.save(alert);
 
-        return mapToDto(alert, null);
+        AlertDto alertDto = alertDtoAssembler.toDto(alert, null);
+        eventPublisher.publishEvent(AlertChangedEvent.statusChanged(alertDto, previousStatus));
+
+        return alertDto;
     }
 
     @Override
@@ -263,27 +242,48 @@ public class AlertServiceImpl implements AlertService {
         Alert alert = alertRepository.findById(alertId)
                 .orElseThrow(() -> new RuntimeException("Alerta no encontrada"));
 
+        AlertDto snapshot = alertDtoAssembler.toDto(alert, null, Collections.emptyList());
         alertRepository.delete(alert);
+        eventPublisher.publishEvent(AlertChangedEvent.deleted(snapshot));
     }
 
     @Override
-    @Transactional(readOnly = true)
-    public Page<AlertDto> getRecentAlerts(Pageable pageable) {
-        Page<Alert> alertPage = alertRepository.findByStatusIn(
-                List.of("ACTIVE", "RESOLVED"),
-                pageable
-        );
+    public Page<AlertDto> getRecentAlerts(Pageable pageable, String cursor) {
+        int pageSize = Math.max(1, pageable.getPageSize());
+
+        if (cursor != null && !cursor.isBlank()) {
+            String[] parts = decodeCursor(cursor);
+            List<Alert> alerts = alertRepository.findRecentBefore(
+                    OffsetDateTime.parse(parts[0]), UUID.fromString(parts[1]), pageSize);
+            return new PageImpl<>(alertDtoAssembler.toDtos(alerts), PageRequest.of(0, pageSize),
+                    recentAlertsBuffer.getTotal());
+        }
+
+        long end = pageable.getOffset() + pageSize;
 
-        List<AlertDto> dtos = alertPage.getContent().stream()
-                .map(alert -> mapToDto(alert, null))
-                .collect(Collectors.toList());
+        // Primeras páginas desde el buffer en memoria (nunca más de CAPACITY alertas)
+        if (recentAlertsBuffer.isLoaded() && end <= RecentAlertsBuffer.CAPACITY) {
+            List<AlertDto> recent = recentAlertsBuffer.latest((int) end);
+            if (recent.size() >= end || recentAlertsBuffer.holdsAll(recent.size())) {
+                int from = (int) Math.min(pageable.getOffset(), recent.size());
+                List<AlertDto> content = recent.subList(from, recent.size());
+                return new PageImpl<>(new ArrayList<>(content), pageable, recentAlertsBuffer.getTotal());
+            }
+        }
 
-        return new PageImpl<>(dtos, pageable, alertPage.getTotalElements());
+        // Más allá del buffer: solo la página pedida, y DTOs solo para sus filas
+        List<Alert> alerts = alertRepository.findRecentPage(pageable.getOffset(), pageSize);
+        return new PageImpl<>(alertDtoAssembler.toDtos(alerts), pageable, recentAlertsBuffer.getTotal());
+    }
+
+    @Override
+    public String getRecentAlertsCursor(AlertDto lastAlert) {
+        return encodeCursor(lastAlert.getCreatedAt(), lastAlert.getId());
     }
 
     @Override
     @Transactional(readOnly = true)
-    public List<AlertDto> searchAlerts(
+    public AlertSearchResultDto searchAlerts(
             String query,
             String category,
             String status,
@@ -293,36 +293,39 @@ public class AlertServiceImpl implements AlertService {
             Integer maxRadiusM,
             OffsetDateTime dateFrom,
             OffsetDateTime dateTo,
-            int skip,
+            String cursor,
             int limit) {
 
-        List<Alert> allAlerts = alertRepository.findAll();
-
-        // Apply filters
-        List<Alert> filtered = allAlerts.stream()
-                .filter(alert -> query == null || query.isEmpty() ||
-                        alert.getTitle().toLowerCase().contains(query.toLowerCase()) ||
-                        alert.getDescription().toLowerCase().contains(query.toLowerCase()))
-                .filter(alert -> category == null || alert.getCategory().equals(category))
-                .filter(alert -> status == null || alert.getStatus().equals(status))
-                .filter(alert -> verificationStatus == null || alert.getVerificationStatus().equals(verificationStatus))
-                .filter(alert -> cityId == null || (alert.getCity() != null && alert.getCity().getId().equals(cityId)))
-                .filter(alert -> minRadiusM == null || alert.getRadiusM() >= minRadiusM)
-                .filter(alert -> maxRadiusM == null || alert.getRadiusM() <= maxRadiusM)
-                .filter(alert -> dateFrom == null || alert.getCreatedAt().isAfter(dateFrom))
-                .filter(alert -> dateTo == null || alert.getCreatedAt().isBefore(dateTo))
-                .sorted((a, b) -> b.getCreatedAt().compareTo(a.getCreatedAt()))
-                .skip(skip)
-                .limit(limit)
-                .collect(Collectors.toList());
-
-        return filtered.stream()
-                .map(alert -> mapToDto(alert, null))
-                .collect(Collectors.toList());
+        OffsetDateTime cursorCreatedAt = null;
+        UUID cursorId = null;
+        if (cursor != null && !cursor.isBlank()) {
+            String[] parts = decodeCursor(cursor);
+            cursorCreatedAt = OffsetDateTime.parse(parts[0]);
+            cursorId = UUID.fromString(parts[1]);
+        }
+
+        int pageSize = Math.max(1, limit);
+
+        // Se pide un elemento extra para saber si hay una página siguiente
+        List<Alert> alerts = alertRepository.searchAlerts(
+                query, category, status, verificationStatus, cityId,
+                minRadiusM, maxRadiusM, dateFrom, dateTo,
+                cursorCreatedAt, cursorId, pageSize + 1);
+
+        String nextCursor = null;
+        if (alerts.size() > pageSize) {
+            alerts = alerts.subList(0, pageSize);
+            Alert last = alerts.get(pageSize - 1);
+            nextCursor = encodeCursor(last.getCreatedAt(), last.getId());
+        }
+
+        return AlertSearchResultDto.builder()
+                .alerts(alertDtoAssembler.toDtos(alerts))
+                .nextCursor(nextCursor)
+                .build();
     }
 
     @Override
-    @Transactional(readOnly = true)
     public List<HeatmapPointDto> getHeatmapData(
             Double swLat,
             Double swLon,
@@ -330,52 +333,47 @@ public class AlertServiceImpl implements AlertService {
             Double neLon,
             Double gridSizeM) {
 
-        // Get all active alerts within bounds
-        List<Alert> alerts = alertRepository.findAlertsInBounds(swLat, swLon, neLat, neLon);
-
-        // Convert grid size from meters to degrees (approximate: 1 degree ~ 111 km)
-        Double gridSizeDegrees = gridSizeM / 111320.0;
-
-        Map<String, HeatmapPointDto> gridMap = new HashMap<>();
-        int maxCount = 0;
+        // Los conteos por celda se mantienen en memoria; no se consulta la base de datos
+        return heatmapTilePyramid.getBounds(swLat, swLon, neLat, neLon, gridSizeM);
+    }
 
-        // Populate grid cells with alert counts
-        for (Alert alert : alerts) {
-            Double lat = alert.getGeometry().getY();
-            Double lon = alert.getGeometry().getX();
+    @Override
+    public List<HeatmapPointDto> getHeatmapTile(int z, int x, int y) {
+        if (z < HeatmapTilePyramid.MIN_ZOOM || z > HeatmapTilePyramid.MAX_ZOOM) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, String.format(
+                    "El zoom debe estar entre %d y %d", HeatmapTilePyramid.MIN_ZOOM, HeatmapTilePyramid.MAX_ZOOM));
+        }
 
-            // Calculate grid cell coordinates
-            Double gridLat = Math.floor(lat / gridSizeDegrees) * gridSizeDegrees;
-            Double gridLon = Math.floor(lon / gridSizeDegrees) * gridSizeDegrees;
+        int tiles = 1 << z;
+        if (x < 0 || x >= tiles || y < 0 || y >= tiles) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Tesela fuera de rango");
+        }
 
-            String gridKey = gridLat + "," + gridLon;
+        return heatmapTilePyramid.getTile(z, x, y);
+    }
 
-            HeatmapPointDto point = gridMap.getOrDefault(gridKey, HeatmapPointDto.builder()
-                    .latitude(gridLat + gridSizeDegrees / 2) // Center of cell
-                    .longitude(gridLon + gridSizeDegrees / 2)
-                    .count(0)
-                    .intensity(0.0)
-                    .build());
+    private String encodeCursor(OffsetDateTime createdAt, UUID id) {
+        String raw = createdAt.toString() + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
 
-            point.setCount(point.getCount() + 1);
-            maxCount = Math.max(maxCount, point.getCount());
-            gridMap.put(gridKey, point);
+    private String[] decodeCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Formato de cursor inválido");
+            }
+            // Validar ambas partes antes de usarlas
+            OffsetDateTime.parse(parts[0]);
+            UUID.fromString(parts[1]);
+            return parts;
+        } catch (RuntimeException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Cursor de búsqueda inválido");
         }
-
-        // Normalize intensity based on max count
-        final int finalMaxCount = Math.max(maxCount, 1); // Avoid division by zero
-        gridMap.values().forEach(point -> {
-            // Normalize to 0.0 - 1.0 range
-            point.setIntensity((double) point.getCount() / finalMaxCount);
-        });
-
-        return gridMap.values().stream()
-                .sorted((a, b) -> b.getCount().compareTo(a.getCount()))
-                .collect(Collectors.toList());
     }
 
     @Override
-    @Transactional(readOnly = true)
     public AlertStatsDto getAlertStats(String timeRange, UUID cityId) {
         OffsetDateTime now = OffsetDateTime.now();
         OffsetDateTime dateFrom;
@@ -395,105 +393,29 @@ public class AlertServiceImpl implements AlertService {
                 dateFrom = now.minus(7, ChronoUnit.DAYS);
         }
 
-        // Get all alerts in time range
-        List<Alert> alerts = alertRepository.findByCreatedAtBetweenOrderByCreatedAtDesc(dateFrom, now);
-
-        // Filter by city if provided
-        if (cityId != null) {
-            alerts = alerts.stream()
-                    .filter(a -> a.getCity() != null && a.getCity().getId().equals(cityId))
-                    .collect(Collectors.toList());
-        }
-
-        // Calculate stats
-        long totalAlerts = alerts.size();
-        long activeAlerts = alerts.stream().filter(a -> "ACTIVE".equals(a.getStatus())).count();
-        long resolvedAlerts = alerts.stream().filter(a -> "RESOLVED".equals(a.getStatus())).count();
-        long cancelledAlerts = alerts.stream().filter(a -> "CANCELLED".equals(a.getStatus())).count();
-
-        // Count by category
-        Map<String, Long> byCategory = new HashMap<>();
-        alerts.stream()
-                .collect(Collectors.groupingBy(Alert::getCategory, Collectors.counting()))
-                .forEach((key, value) -> byCategory.put(key, value));
+        // Sumar los buckets horarios precalculados (como máximo 720 para 30 días)
+        AlertStatsRollup.Totals totals = alertStatsRollup.sum(dateFrom, now, cityId);
 
-        // Count by verification status
-        Map<String, Long> byVerification = new HashMap<>();
-        alerts.stream()
-                .collect(Collectors.groupingBy(Alert::getVerificationStatus, Collectors.counting()))
-                .forEach((key, value) -> byVerification.put(key, value));
+        long totalAlerts = totals.getTotal();
+        long activeAlerts = totals.getByStatus().getOrDefault("ACTIVE", 0L);
+        long resolvedAlerts = totals.getByStatus().getOrDefault("RESOLVED", 0L);
+        long cancelledAlerts = totals.getByStatus().getOrDefault("CANCELLED", 0L);
 
         // Calculate false report percentage
-        long falseReports = alerts.stream().filter(a -> "REJECTED".equals(a.getVerificationStatus())).count();
+        long falseReports = totals.getByVerificationStatus().getOrDefault("REJECTED", 0L);
         double falsePercentage = totalAlerts > 0 ? (falseReports * 100.0) / totalAlerts : 0;
 
-        // Get user stats
-        List<User> activeUsers = userRepository.findByStatus("ACTIVE");
-        long totalUsers = userRepository.count();
-
         return AlertStatsDto.builder()
                 .totalAlerts(totalAlerts)
                 .activeAlerts(activeAlerts)
                 .resolvedAlerts(resolvedAlerts)
                 .cancelledAlerts(cancelledAlerts)
-                .alertsByCategory(byCategory)
-                .alertsByVerificationStatus(byVerification)
+                .alertsByCategory(totals.getByCategory())
+                .alertsByVerificationStatus(totals.getByVerificationStatus())
                 .falseReportsPercentage(falsePercentage)
-                .totalUsers(totalUsers)
-                .activeUsers((long) activeUsers.size())
+                .totalUsers(userCountCache.getTotalUsers())
+                .activeUsers(userCountCache.getActiveUsers())
                 .timeRange(timeRange)
                 .build();
     }
-
-    private AlertDto mapToDto(Alert alert, Double distance) {
-        // Cargar media asociada a la alerta
-        List<AlertMedia> alertMediaList = alertMediaRepository.findByAlertId(alert.getId());
-        List<Media> mediaList = alertMediaList.stream()
-                .map(AlertMedia::getMedia)
-                .collect(Collectors.toList());
-
-        return mapToDto(alert, distance, mediaList);
-    }
-
-    private AlertDto mapToDto(Alert alert, Double distance, List<Media> mediaList) {
-        String createdByUserName = null;
-        if (!Boolean.TRUE.equals(alert.getIsAnonymous())) {
-            createdByUserName = alert.getCreatedByUser().getFirstName() + " " +
-                    alert.getCreatedByUser().getLastName();
-        }
-
-        // Convertir Media a MediaDto
-        List<MediaDto> mediaDtoList = mediaList != null ? mediaList.stream()
-                .map(media -> MediaDto.builder()
-                        .id(media.getId())
-                        .url(media.getUrl())
-                        .mimeType(media.getMimeType())
-                        .wasBlurred(media.getForBlurAnalysis())
-                        .createdAt(media.getCreatedAt())
-                        .build())
-                .collect(Collectors.toList()) : new ArrayList<>();
-
-        return AlertDto.builder()
-                .id(alert.getId())
-                .createdByUserId(alert.getCreatedByUser().getId())
-                .createdByUserName(createdByUserName)
-                .category(alert.getCategory())
-                .status(alert.getStatus())
-                .verificationStatus(alert.getVerificationStatus())
-                .title(alert.getTitle())
-                .description(alert.getDescription())
-                .isAnonymous(alert.getIsAnonymous())
-                .address(alert.getAddress())
-                .cityId(alert.getCity() != null ? alert.getCity().getId() : null)
-                .cityName(alert.getCity() != null ? alert.getCity().getName() : null)
-                .latitude(alert.getGeometry().getY())
-                .longitude(alert.getGeometry().getX())
-                .radiusM(alert.getRadiusM())
-                .createdAt(alert.getCreatedAt())
-                .updatedAt(alert.getUpdatedAt())
-                .resolvedAt(alert.getResolvedAt())
-                .distanceFromUserM(distance)
-                .media(mediaDtoList)
-                .build();
-    }
 }
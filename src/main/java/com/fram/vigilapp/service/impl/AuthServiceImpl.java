@@ -1,5 +1,6 @@
 package com.fram.vigilapp.service.impl;
 
+import com.fram.vigilapp.cache.UserCountCache;
 import com.fram.vigilapp.config.auth.AuthenticationRequest;
 import com.fram.vigilapp.dto.FaceVerificationResponse;
 import com.fram.vigilapp.dto.IdValidationResponse;
@@ -41,6 +42,7 @@ public class AuthServiceImpl implements AuthService {
     private final FaceVerificationService faceVerificationService;
     private final MediaRepository mediaRepository;
     private final IdentityVerificationRepository identityVerificationRepository;
+    private final UserCountCache userCountCache;
 
     @Override
     @Transactional
@@ -109,6 +111,7 @@ public class AuthServiceImpl implements AuthService {
                 .build();
 
         User savedUser = userRepository.save(user);
+        userCountCache.userRegistered(savedUser.getStatus());
 
         // Paso 5: Guardar las imágenes en la tabla Media
         // TODO: En producción, las imágenes deberían guardarse en un servicio de almacenamiento
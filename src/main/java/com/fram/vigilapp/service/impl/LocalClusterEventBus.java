@@ -0,0 +1,24 @@
+package com.fram.vigilapp.service.impl;
+
+import com.fram.vigilapp.event.ClusterAlertEvent;
+import com.fram.vigilapp.service.ClusterEventBus;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+/**
+ * Bus para una sola instancia: entrega el evento directamente en esta instancia
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "cluster.bus.type", havingValue = "local", matchIfMissing = true)
+public class LocalClusterEventBus implements ClusterEventBus {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Override
+    public void publish(ClusterAlertEvent event) {
+        eventPublisher.publishEvent(event);
+    }
+}
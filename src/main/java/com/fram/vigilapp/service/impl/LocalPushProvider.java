@@ -0,0 +1,52 @@
+package com.fram.vigilapp.service.impl;
+
+import com.fram.vigilapp.dto.PushMessage;
+import com.fram.vigilapp.dto.PushSendResult;
+import com.fram.vigilapp.service.PushProvider;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Proveedor push de desarrollo: no contacta ningún servicio externo, solo registra
+ * los mensajes en el log y los da por enviados. Atiende los proveedores listados en
+ * push.local.providers (por defecto solo LOCAL). No debe listar FCM ni APNS en
+ * producción: marcaría como SENT notificaciones que nunca se entregaron.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "push.local.enabled", havingValue = "true", matchIfMissing = true)
+public class LocalPushProvider implements PushProvider {
+
+    @Value("${push.local.providers:LOCAL}")
+    private Set<String> providers;
+
+    @Value("${push.local.batch-size:500}")
+    private int batchSize;
+
+    @Override
+    public boolean supports(String provider) {
+        return provider != null && providers.contains(provider.toUpperCase());
+    }
+
+    @Override
+    public int getMaxBatchSize() {
+        return batchSize;
+    }
+
+    @Override
+    public PushSendResult send(List<PushMessage> messages) {
+        for (PushMessage message : messages) {
+            log.debug("[LocalPush] {} -> {}: {}", message.getProvider(), message.getToken(), message.getTitle());
+        }
+        log.info("[LocalPush] {} push messages sent", messages.size());
+        return PushSendResult.builder()
+                .failedTokens(Set.of())
+                .invalidTokens(Set.of())
+                .build();
+    }
+}
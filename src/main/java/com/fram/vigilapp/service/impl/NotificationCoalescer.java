@@ -0,0 +1,198 @@
+package com.fram.vigilapp.service.impl;
+
+import com.fram.vigilapp.cache.UserZoneIndex;
+import com.fram.vigilapp.config.NotificationCoalesceProperties;
+import com.fram.vigilapp.dto.AlertDto;
+import com.fram.vigilapp.dto.NotificationFanoutResult;
+import com.fram.vigilapp.entity.Alert;
+import com.fram.vigilapp.event.NotificationCountsChangedEvent;
+import com.fram.vigilapp.util.CoalescingBuffer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Agrupa las notificaciones de cada usuario durante ráfagas de alertas.
+ *
+ * La primera alerta que afecta a un usuario se notifica al momento y abre una ventana
+ * (notifications.coalesce.window); las siguientes se acumulan y al cerrarse la ventana
+ * se escribe una sola fila resumen (alert_id = la más reciente, digest_alert_ids = todas).
+ * Lo mismo para los frames WebSocket por sesión (ver AlertNotificationServiceImpl).
+ * Las categorías de bypass-categories (EMERGENCY) no pasan por aquí.
+ *
+ * Los destinatarios salen de UserZoneIndex. Lo acumulado está en memoria: se vuelca al
+ * apagar, pero una caída puede perder como mucho una ventana de notificaciones no urgentes.
+ */
+@Slf4j
+@Component
+public class NotificationCoalescer {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO notifications (alert_id, user_id, channel, status, created_at, digest_alert_ids) " +
+            "SELECT CAST(? AS uuid), u.id, ?, 'QUEUED', NOW(), CAST(? AS uuid[]) " +
+            "FROM users u " +
+            "WHERE u.id = ? AND u.status = 'ACTIVE' " +
+            "AND NOT EXISTS (SELECT 1 FROM notifications n WHERE n.alert_id = ? AND n.user_id = u.id)";
+
+    private final NotificationCoalesceProperties properties;
+    private final UserZoneIndex userZoneIndex;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final CoalescingBuffer<Recipient, UUID> notificationBuffer;
+    private final CoalescingBuffer<String, AlertDto> frameBuffer;
+
+    private record Recipient(UUID userId, String channel) {
+    }
+
+    private record Row(UUID userId, String channel, List<UUID> alertIds) {
+    }
+
+    public NotificationCoalescer(NotificationCoalesceProperties properties,
+                                 UserZoneIndex userZoneIndex,
+                                 JdbcTemplate jdbcTemplate,
+                                 TransactionTemplate transactionTemplate,
+                                 ApplicationEventPublisher eventPublisher) {
+        this.properties = properties;
+        this.userZoneIndex = userZoneIndex;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
+        this.notificationBuffer = new CoalescingBuffer<>(properties.getWindow().toMillis());
+        this.frameBuffer = new CoalescingBuffer<>(properties.getWindow().toMillis());
+    }
+
+    public boolean appliesTo(String category) {
+        return properties.appliesTo(category);
+    }
+
+    /**
+     * Notificaciones de una alerta nueva para los usuarios cuya zona la contiene.
+     * Inserta ya las de usuarios sin ventana abierta y acumula el resto.
+     * Debe llamarse dentro de una transacción.
+     */
+    public NotificationFanoutResult submit(Alert alert, String channel) {
+        long now = System.currentTimeMillis();
+        UUID creatorId = alert.getCreatedByUser().getId();
+
+        List<Row> immediate = new ArrayList<>();
+        int buffered = 0;
+        for (UserZoneIndex.Zone zone : userZoneIndex.findZonesContaining(
+                alert.getGeometry().getY(), alert.getGeometry().getX())) {
+            if (zone.userId().equals(creatorId)) {
+                continue;
+            }
+            if (notificationBuffer.offer(new Recipient(zone.userId(), channel), alert.getId(), now)) {
+                immediate.add(new Row(zone.userId(), channel, List.of(alert.getId())));
+            } else {
+                buffered++;
+            }
+        }
+
+        List<UUID> recipients = insertRows(immediate);
+        log.info("Alert {}: {} notifications created, {} held for digest", alert.getId(), recipients.size(), buffered);
+        return NotificationFanoutResult.builder()
+                .alertId(alert.getId())
+                .recipientCount(recipients.size())
+                .recipientIds(recipients)
+                .build();
+    }
+
+    /**
+     * @return true si el frame debe enviarse ya a la sesión; false si quedó acumulado
+     */
+    public boolean offerFrame(String sessionId, AlertDto alert) {
+        return frameBuffer.offer(sessionId, alert, System.currentTimeMillis());
+    }
+
+    /**
+     * Frames acumulados de las ventanas ya cerradas, por sesión
+     */
+    public Map<String, List<AlertDto>> drainExpiredFrames() {
+        return frameBuffer.drainExpired(System.currentTimeMillis());
+    }
+
+    @Scheduled(fixedDelay = 1000)
+    public void flushExpired() {
+        flush(notificationBuffer.drainExpired(System.currentTimeMillis()));
+    }
+
+    @PreDestroy
+    public void flushAll() {
+        flush(notificationBuffer.drainAll());
+    }
+
+    private void flush(Map<Recipient, List<UUID>> drained) {
+        if (drained.isEmpty()) {
+            return;
+        }
+
+        List<Row> rows = new ArrayList<>(drained.size());
+        drained.forEach((recipient, alertIds) ->
+                rows.add(new Row(recipient.userId(), recipient.channel(), alertIds)));
+
+        try {
+            List<UUID> recipients = transactionTemplate.execute(status -> insertRows(rows));
+            log.info("Coalesced notifications flushed: {} digests for {} users", rows.size(),
+                    recipients != null ? recipients.size() : 0);
+        } catch (Exception e) {
+            log.error("Error flushing {} coalesced notifications: {}", rows.size(), e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Una fila por usuario en un solo batch; devuelve los usuarios que recibieron fila
+     */
+    private List<UUID> insertRows(List<Row> rows) {
+        if (rows.isEmpty()) {
+            return List.of();
+        }
+
+        int[] counts = jdbcTemplate.batchUpdate(INSERT_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                Row row = rows.get(i);
+                UUID latest = row.alertIds().get(row.alertIds().size() - 1);
+                ps.setObject(1, latest);
+                ps.setString(2, row.channel());
+                if (row.alertIds().size() > 1) {
+                    ps.setArray(3, ps.getConnection().createArrayOf("uuid", row.alertIds().toArray()));
+                } else {
+                    ps.setNull(3, Types.ARRAY);
+                }
+                ps.setObject(4, row.userId());
+                ps.setObject(5, latest);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return rows.size();
+            }
+        });
+
+        List<UUID> recipients = new ArrayList<>();
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > 0) {
+                recipients.add(rows.get(i).userId());
+            }
+        }
+        if (!recipients.isEmpty()) {
+            eventPublisher.publishEvent(NotificationCountsChangedEvent.created(recipients));
+        }
+        return recipients;
+    }
+}
@@ -0,0 +1,392 @@
+package com.fram.vigilapp.service.impl;
+
+import com.fram.vigilapp.dto.NotificationPurgeStatusDto;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Purga en segundo plano de notificaciones antiguas, por trozos acotados.
+ *
+ * Recorre las filas con created_at < cutoff en orden (created_at, id) con un cursor
+ * keyset, borrando cada trozo en su propia transacción corta con statement_timeout.
+ * Si hay directorio de archivo, las filas borradas (RETURNING) se escriben antes del
+ * commit en un NDJSON comprimido con gzip; un trozo cuya escritura falla se revierte
+ * (el archivo es al menos una vez: un trozo revertido puede quedar escrito).
+ *
+ * El tamaño del trozo se ajusta para que cada uno tarde unos target-chunk-ms, y tras
+ * cada trozo se duerme lo necesario para no superar duty-cycle del tiempo, de modo que
+ * la purga no compita con el tráfico normal. Se puede pausar, reanudar y cancelar.
+ *
+ * Si se pide, antes de los trozos se eliminan las particiones de meses completos
+ * anteriores al cutoff (salvo con archivo), también en el hilo de mantenimiento: el
+ * DETACH/DROP toma un bloqueo ACCESS EXCLUSIVE que no debe esperar un hilo HTTP.
+ */
+@Slf4j
+@Component
+public class NotificationPurgeJob {
+
+    private static final OffsetDateTime CURSOR_START = OffsetDateTime.of(1970, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+    private static final UUID CURSOR_START_ID = new UUID(0L, 0L);
+    private static final int MIN_CHUNK_SIZE = 50;
+    private static final int MAX_CONSECUTIVE_FAILURES = 5;
+    private static final DateTimeFormatter FILE_STAMP = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss");
+
+    /**
+     * Borra el siguiente trozo tras el cursor y devuelve las filas borradas.
+     * El USING sobre la subconsulta permite limitar el DELETE y aprovechar idx_notifications_created_id.
+     */
+    private static final String DELETE_CHUNK_SQL =
+            "WITH doomed AS (" +
+            "  SELECT id, created_at FROM notifications" +
+            "  WHERE created_at < ? AND (created_at, id) > (?, ?)" +
+            "  ORDER BY created_at, id LIMIT ?" +
+            ") " +
+            "DELETE FROM notifications n USING doomed d " +
+            "WHERE n.id = d.id AND n.created_at = d.created_at " +
+            "RETURNING n.id, n.created_at, row_to_json(n)::text AS row_json";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ThreadPoolTaskExecutor maintenanceExecutor;
+    private final PartitionMaintenanceJob partitionMaintenanceJob;
+
+    @Value("${notifications.purge.chunk-size:1000}")
+    private int initialChunkSize;
+
+    @Value("${notifications.purge.max-chunk-size:10000}")
+    private int maxChunkSize;
+
+    @Value("${notifications.purge.target-chunk-ms:200}")
+    private long targetChunkMs;
+
+    // Fracción del tiempo que la purga puede estar trabajando (el resto duerme)
+    @Value("${notifications.purge.duty-cycle:0.25}")
+    private double dutyCycle;
+
+    @Value("${notifications.purge.statement-timeout-ms:2000}")
+    private long statementTimeoutMs;
+
+    // Vacío desactiva el archivo
+    @Value("${notifications.purge.archive-dir:}")
+    private String archiveDir;
+
+    // 0 desactiva la purga programada
+    @Value("${notifications.purge.retention-days:0}")
+    private int retentionDays;
+
+    private record DeletedRow(UUID id, OffsetDateTime createdAt, String json) {
+    }
+
+    // true desde que start reserva la ejecución hasta que run termina (finally)
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    // Estado de la ejecución actual; solo el hilo de mantenimiento modifica los contadores
+    private volatile String state = "IDLE";
+    private volatile boolean dropPartitions;
+    private volatile boolean paused;
+    private volatile boolean cancelled;
+    private volatile OffsetDateTime cutoff;
+    private volatile OffsetDateTime lastCreatedAt;
+    private volatile UUID lastId;
+    private volatile long deletedRows;
+    private volatile long archivedRows;
+    private volatile long chunks;
+    private volatile int chunkSize;
+    private volatile String archiveFile;
+    private volatile OffsetDateTime startedAt;
+    private volatile OffsetDateTime finishedAt;
+    private volatile String lastError;
+
+    public NotificationPurgeJob(JdbcTemplate jdbcTemplate,
+                                TransactionTemplate transactionTemplate,
+                                @Qualifier("maintenanceExecutor") ThreadPoolTaskExecutor maintenanceExecutor,
+                                PartitionMaintenanceJob partitionMaintenanceJob) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.maintenanceExecutor = maintenanceExecutor;
+        this.partitionMaintenanceJob = partitionMaintenanceJob;
+    }
+
+    @Scheduled(cron = "0 0 4 * * *")
+    public void purgeExpired() {
+        if (retentionDays > 0) {
+            start(OffsetDateTime.now().minus(retentionDays, ChronoUnit.DAYS), false);
+        }
+    }
+
+    /**
+     * Lanza la purga de las notificaciones creadas antes de cutoff
+     * @param dropPartitions eliminar antes las particiones de meses completos anteriores al cutoff
+     * @return false si ya hay una purga en curso
+     */
+    public synchronized boolean start(OffsetDateTime cutoff, boolean dropPartitions) {
+        if (!running.compareAndSet(false, true)) {
+            log.info("Notification purge already running, ignoring request for cutoff {}", cutoff);
+            return false;
+        }
+
+        this.cutoff = cutoff;
+        this.lastCreatedAt = CURSOR_START;
+        this.lastId = CURSOR_START_ID;
+        this.deletedRows = 0;
+        this.archivedRows = 0;
+        this.chunks = 0;
+        this.chunkSize = Math.max(MIN_CHUNK_SIZE, initialChunkSize);
+        this.archiveFile = null;
+        this.startedAt = OffsetDateTime.now();
+        this.finishedAt = null;
+        this.lastError = null;
+        this.paused = false;
+        this.cancelled = false;
+        this.dropPartitions = dropPartitions && !isArchiving();
+
+        String previousState = state;
+        this.state = "RUNNING";
+        try {
+            maintenanceExecutor.execute(this::run);
+        } catch (RejectedExecutionException e) {
+            // El hilo de mantenimiento sigue ocupado: no queda una ejecución fantasma en RUNNING
+            state = previousState;
+            running.set(false);
+            log.warn("Maintenance executor busy, notification purge for cutoff {} not started", cutoff);
+            return false;
+        }
+        return true;
+    }
+
+    public void pause() {
+        if (isRunning()) {
+            paused = true;
+            state = "PAUSED";
+            log.info("Notification purge paused");
+        }
+    }
+
+    public void resume() {
+        if (isRunning()) {
+            paused = false;
+            state = "RUNNING";
+            log.info("Notification purge resumed");
+        }
+    }
+
+    public void cancel() {
+        if (isRunning()) {
+            cancelled = true;
+            paused = false;
+        }
+    }
+
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    /**
+     * Con archivo activado las filas deben pasar por la purga (no se pueden borrar particiones enteras)
+     */
+    public boolean isArchiving() {
+        return archiveDir != null && !archiveDir.isBlank();
+    }
+
+    public NotificationPurgeStatusDto getStatus() {
+        return NotificationPurgeStatusDto.builder()
+                .state(state)
+                .cutoff(cutoff)
+                .deletedRows(deletedRows)
+                .archivedRows(archivedRows)
+                .chunks(chunks)
+                .chunkSize(chunkSize)
+                .lastCreatedAt(CURSOR_START.equals(lastCreatedAt) ? null : lastCreatedAt)
+                .archiveFile(archiveFile)
+                .startedAt(startedAt)
+                .finishedAt(finishedAt)
+                .lastError(lastError)
+                .build();
+    }
+
+    private void run() {
+        log.info("Starting notification purge for rows created before {}", cutoff);
+        BufferedWriter archive = null;
+        try {
+            if (dropPartitions) {
+                int dropped = partitionMaintenanceJob.dropPartitionsOlderThan(cutoff);
+                log.info("Old notifications: {} partitions dropped", dropped);
+            }
+            archive = openArchive();
+
+            int failures = 0;
+            while (!cancelled) {
+                if (paused) {
+                    Thread.sleep(500);
+                    continue;
+                }
+
+                long start = System.nanoTime();
+                int deleted;
+                try {
+                    deleted = purgeChunk(archive);
+                    failures = 0;
+                } catch (DataAccessException e) {
+                    // Normalmente statement_timeout o lock_timeout: reintentar con un trozo menor
+                    if (++failures >= MAX_CONSECUTIVE_FAILURES) {
+                        throw e;
+                    }
+                    log.warn("Notification purge chunk of {} failed ({}), retrying smaller", chunkSize, e.getMessage());
+                    chunkSize = Math.max(MIN_CHUNK_SIZE, chunkSize / 2);
+                    Thread.sleep(targetChunkMs * failures);
+                    continue;
+                }
+                long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+                if (deleted == 0) {
+                    break;
+                }
+                adjustChunkSize(elapsedMs);
+                throttle(elapsedMs);
+            }
+
+            state = cancelled ? "CANCELLED" : "COMPLETED";
+            log.info("Notification purge {}: {} rows deleted in {} chunks, {} archived",
+                    state.toLowerCase(), deletedRows, chunks, archivedRows);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            state = "CANCELLED";
+        } catch (Exception e) {
+            lastError = e.getMessage();
+            state = "FAILED";
+            log.error("Notification purge failed after {} rows: {}", deletedRows, e.getMessage(), e);
+        } finally {
+            finishedAt = OffsetDateTime.now();
+            closeArchive(archive);
+            running.set(false);
+        }
+    }
+
+    /**
+     * Borra (y archiva) un trozo en una transacción corta
+     * @return filas borradas
+     */
+    private int purgeChunk(BufferedWriter archive) {
+        List<DeletedRow> rows = transactionTemplate.execute(status -> {
+            // Acota lo que un trozo puede bloquear o tardar
+            jdbcTemplate.execute("SET LOCAL statement_timeout = " + statementTimeoutMs);
+            jdbcTemplate.execute("SET LOCAL lock_timeout = " + Math.max(1, statementTimeoutMs / 4));
+
+            List<DeletedRow> deleted = jdbcTemplate.query(DELETE_CHUNK_SQL,
+                    (rs, rowNum) -> new DeletedRow(
+                            rs.getObject("id", UUID.class),
+                            rs.getObject("created_at", OffsetDateTime.class),
+                            rs.getString("row_json")),
+                    cutoff, lastCreatedAt, lastId, chunkSize);
+
+            // Se escribe antes del commit: si falla, el trozo se revierte
+            if (archive != null && !deleted.isEmpty()) {
+                writeArchive(archive, deleted);
+            }
+            return deleted;
+        });
+
+        if (rows == null || rows.isEmpty()) {
+            return 0;
+        }
+
+        // RETURNING no garantiza orden: el cursor avanza al mayor (created_at, id) borrado
+        DeletedRow last = rows.get(0);
+        for (DeletedRow row : rows) {
+            int cmp = row.createdAt().compareTo(last.createdAt());
+            if (cmp > 0 || (cmp == 0 && row.id().compareTo(last.id()) > 0)) {
+                last = row;
+            }
+        }
+        lastCreatedAt = last.createdAt();
+        lastId = last.id();
+
+        deletedRows += rows.size();
+        if (archive != null) {
+            archivedRows += rows.size();
+        }
+        chunks++;
+        return rows.size();
+    }
+
+    private void adjustChunkSize(long elapsedMs) {
+        if (elapsedMs > targetChunkMs) {
+            chunkSize = Math.max(MIN_CHUNK_SIZE, chunkSize / 2);
+        } else if (elapsedMs < targetChunkMs / 2) {
+            chunkSize = Math.min(maxChunkSize, chunkSize * 2);
+        }
+    }
+
+    private void throttle(long elapsedMs) throws InterruptedException {
+        double duty = Math.min(1.0, Math.max(0.01, dutyCycle));
+        long sleepMs = (long) (elapsedMs * (1 - duty) / duty);
+        if (sleepMs > 0) {
+            Thread.sleep(sleepMs);
+        }
+    }
+
+    private BufferedWriter openArchive() throws IOException {
+        if (!isArchiving()) {
+            return null;
+        }
+
+        Path dir = Paths.get(archiveDir);
+        Files.createDirectories(dir);
+        Path file = dir.resolve(String.format("notifications-before-%s-%s.ndjson.gz",
+                cutoff.withOffsetSameInstant(ZoneOffset.UTC).toLocalDate(),
+                OffsetDateTime.now(ZoneOffset.UTC).format(FILE_STAMP)));
+        archiveFile = file.toString();
+
+        // syncFlush: cada flush deja en disco un bloque gzip completo antes del commit
+        return new BufferedWriter(new OutputStreamWriter(
+                new GZIPOutputStream(Files.newOutputStream(file), 64 * 1024, true), StandardCharsets.UTF_8));
+    }
+
+    private void writeArchive(BufferedWriter archive, List<DeletedRow> rows) {
+        try {
+            for (DeletedRow row : rows) {
+                archive.write(row.json());
+                archive.newLine();
+            }
+            archive.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error escribiendo el archivo de notificaciones", e);
+        }
+    }
+
+    private void closeArchive(BufferedWriter archive) {
+        if (archive == null) {
+            return;
+        }
+        try {
+            archive.close();
+        } catch (IOException e) {
+            log.error("Error closing notification archive {}: {}", archiveFile, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.fram.vigilapp.service.impl;
+
+import com.fram.vigilapp.event.NotificationCountsChangedEvent;
+import com.fram.vigilapp.repository.NotificationRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Reintenta las notificaciones PUSH en FAILED.
+ *
+ * Al fallar, una notificación suma un intento y programa next_attempt_at con backoff
+ * exponencial; al llegar a max-attempts deja de reintentarse. Este worker reclama en
+ * lotes pequeños las que ya vencieron (FOR UPDATE SKIP LOCKED) y las devuelve a QUEUED
+ * para que PushDispatcher, que también reclama con SKIP LOCKED, las envíe. Puede
+ * ejecutarse en varias instancias a la vez: cada fila la reencola una sola.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class NotificationRetryWorker {
+
+    private final NotificationRepository notificationRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${notifications.retry.enabled:true}")
+    private boolean enabled;
+
+    @Value("${notifications.retry.batch-size:100}")
+    private int batchSize;
+
+    @Value("${notifications.retry.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${notifications.retry.base-backoff-seconds:30}")
+    private long baseBackoffSeconds;
+
+    @Scheduled(fixedDelay = 5000)
+    public void requeueDue() {
+        if (!enabled) {
+            return;
+        }
+
+        try {
+            int total = 0;
+            Integer requeued;
+            do {
+                requeued = transactionTemplate.execute(status -> requeueBatch());
+                total += requeued != null ? requeued : 0;
+            } while (requeued != null && requeued == batchSize);
+
+            if (total > 0) {
+                log.info("Requeued {} failed notifications for retry", total);
+            }
+        } catch (Exception e) {
+            log.error("Error requeueing failed notifications: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Marca como FAILED y programa el siguiente intento; debe llamarse dentro de una transacción.
+     * Es el único sitio donde se calcula el backoff (en el UPDATE), también para los fallos sueltos.
+     */
+    public int markFailed(Collection<UUID> notificationIds) {
+        if (notificationIds.isEmpty()) {
+            return 0;
+        }
+        return notificationRepository.markFailedWithBackoff(notificationIds, baseBackoffSeconds, maxAttempts);
+    }
+
+    private int requeueBatch() {
+        List<Object[]> rows = notificationRepository.requeueDueFailed(batchSize);
+
+        // QUEUED vuelve a contar como no entregada
+        Map<UUID, Integer> requeuedByUser = new HashMap<>();
+        for (Object[] row : rows) {
+            requeuedByUser.merge((UUID) row[1], 1, Integer::sum);
+        }
+        requeuedByUser.forEach((userId, count) ->
+                eventPublisher.publishEvent(NotificationCountsChangedEvent.of(userId, 0, count)));
+
+        return rows.size();
+    }
+}
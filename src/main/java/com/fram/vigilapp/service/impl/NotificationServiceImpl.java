@@ -1,21 +1,28 @@
 package com.fram.vigilapp.service.impl;
 
+import com.fram.vigilapp.cache.NotificationCounterCache;
+import com.fram.vigilapp.cache.UserZoneIndex;
+import com.fram.vigilapp.dto.NotificationAckResultDto;
 import com.fram.vigilapp.dto.NotificationDto;
+import com.fram.vigilapp.dto.NotificationFanoutResult;
+import com.fram.vigilapp.dto.NotificationPurgeStatusDto;
 import com.fram.vigilapp.dto.SaveNotificationDto;
 import com.fram.vigilapp.entity.Alert;
 import com.fram.vigilapp.entity.Notification;
 import com.fram.vigilapp.entity.User;
-import com.fram.vigilapp.entity.UserZone;
-import com.fram.vigilapp.repository.AlertRepository;
+import com.fram.vigilapp.event.NotificationCountsChangedEvent;
 import com.fram.vigilapp.repository.NotificationRepository;
-import com.fram.vigilapp.repository.UserRepository;
-import com.fram.vigilapp.repository.UserZoneRepository;
 import com.fram.vigilapp.service.NotificationService;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.time.OffsetDateTime;
 import java.time.temporal.ChronoUnit;
@@ -23,14 +30,27 @@ import java.util.List;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class NotificationServiceImpl implements NotificationService {
 
+    private static final int MAX_ACK_IDS = 500;
+
+    // Solo cambian las filas que aún no tenían el estado: el número actualizado es el delta de los contadores
+    private static final String ACK_DELIVERED_SQL = "UPDATE notifications SET status = 'DELIVERED', delivered_at = NOW() " +
+            "WHERE id = ANY(?) AND user_id = ? AND status IN ('QUEUED', 'SENDING', 'SENT')";
+
+    private static final String ACK_READ_SQL = "UPDATE notifications SET read_at = NOW() " +
+            "WHERE id = ANY(?) AND user_id = ? AND read_at IS NULL AND deleted_at IS NULL";
+
     private final NotificationRepository notificationRepository;
-    private final UserZoneRepository userZoneRepository;
-    private final AlertRepository alertRepository;
-    private final UserRepository userRepository;
+    private final NotificationPurgeJob notificationPurgeJob;
+    private final UserZoneIndex userZoneIndex;
+    private final NotificationCounterCache notificationCounterCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final JdbcTemplate jdbcTemplate;
+    private final NotificationRetryWorker notificationRetryWorker;
 
     @Override
     @Transactional(readOnly = true)
@@ -55,6 +75,7 @@ public class NotificationServiceImpl implements NotificationService {
         Notification notification = notificationRepository.findById(notificationId)
                 .orElseThrow(() -> new RuntimeException("Notificación no encontrada"));
 
+        publishUndeliveredDecrement(notification);
         notification.setStatus("DELIVERED");
         notification.setDeliveredAt(OffsetDateTime.now());
         notification = notificationRepository.save(notification);
@@ -77,6 +98,10 @@ public class NotificationServiceImpl implements NotificationService {
         Notification notification = notificationRepository.findById(notificationId)
                 .orElseThrow(() -> new RuntimeException("Notificación no encontrada"));
 
+        if (isUnread(notification)) {
+            eventPublisher.publishEvent(NotificationCountsChangedEvent.of(notification.getUser().getId(), -1, 0));
+        }
+
         // Borrado lógico
         notification.setDeletedAt(OffsetDateTime.now());
         notificationRepository.save(notification);
@@ -84,42 +109,42 @@ public class NotificationServiceImpl implements NotificationService {
 
     @Override
     @Transactional
-    public void notifyUsersInZone(Alert alert, String channel) {
-        // Find all users whose zone intersects with the alert
-        List<User> usersToNotify = userRepository.findUsersInZone(alert.getGeometry());
-
-        // Filter out the alert creator
-        usersToNotify = usersToNotify.stream()
-                .filter(user -> !user.getId().equals(alert.getCreatedByUser().getId()))
-                .collect(Collectors.toList());
-
-        // Create notification for each user
-        for (User user : usersToNotify) {
-            createNotification(user, alert, channel);
-        }
+    public NotificationFanoutResult notifyUsersInZone(Alert alert, String channel) {
+        // Un solo INSERT ... SELECT: sin cargar usuarios ni guardar fila por fila
+        List<UUID> recipients = notificationRepository.insertForUsersInZone(
+                alert.getId(),
+                alert.getCreatedByUser().getId(),
+                alert.getGeometry().getY(),
+                alert.getGeometry().getX(),
+                channel);
+
+        log.info("Alert {}: {} zone notifications created", alert.getId(), recipients.size());
+        return toFanoutResult(alert, recipients);
     }
 
     @Override
     @Transactional
-    public void notifyUsersInRadius(Alert alert, Integer radiusM, String channel) {
-        // Find all users within the specified radius
-        List<User> allUsers = userRepository.findAll();
-
-        for (User user : allUsers) {
-            UserZone userZone = userZoneRepository.findByUserId(user.getId()).orElse(null);
-            if (userZone != null) {
-                // Check if alert is within user's zone radius
-                Double distance = alertRepository.calculateDistanceFromPoint(
-                        alert.getId(),
-                        userZone.getGeometry().getCentroid().getY(),
-                        userZone.getGeometry().getCentroid().getX()
-                );
-
-                if (distance != null && distance <= radiusM) {
-                    createNotification(user, alert, channel);
-                }
-            }
+    public NotificationFanoutResult notifyUsersInRadius(Alert alert, Integer radiusM, String channel) {
+        // Destinatarios resueltos en memoria con el índice de zonas
+        List<UUID> userIds = userZoneIndex.findUsersWithCenterWithin(
+                alert.getGeometry().getY(), alert.getGeometry().getX(), radiusM);
+
+        List<UUID> recipients = userIds.isEmpty()
+                ? List.of()
+                : notificationRepository.insertForUsers(alert.getId(), userIds, channel);
+
+        return toFanoutResult(alert, recipients);
+    }
+
+    private NotificationFanoutResult toFanoutResult(Alert alert, List<UUID> recipients) {
+        if (!recipients.isEmpty()) {
+            eventPublisher.publishEvent(NotificationCountsChangedEvent.created(recipients));
         }
+        return NotificationFanoutResult.builder()
+                .alertId(alert.getId())
+                .recipientCount(recipients.size())
+                .recipientIds(recipients)
+                .build();
     }
 
     @Override
@@ -138,10 +163,12 @@ public class NotificationServiceImpl implements NotificationService {
                 .user(user)
                 .channel(channel)
                 .status("QUEUED")
+                .attempts(0)
                 .createdAt(OffsetDateTime.now())
                 .build();
 
         notification = notificationRepository.save(notification);
+        eventPublisher.publishEvent(NotificationCountsChangedEvent.created(List.of(user.getId())));
         return mapToDto(notification);
     }
 
@@ -180,22 +207,23 @@ public class NotificationServiceImpl implements NotificationService {
         Notification notification = notificationRepository.findById(notificationId)
                 .orElseThrow(() -> new RuntimeException("Notificación no encontrada"));
 
-        notification.setStatus("FAILED");
-        notification = notificationRepository.save(notification);
+        publishUndeliveredDecrement(notification);
+        // Mismo UPDATE que los fallos en lote: el backoff se calcula en un solo sitio
+        notificationRetryWorker.markFailed(List.of(notificationId));
+        notification = notificationRepository.findById(notificationId)
+                .orElseThrow(() -> new RuntimeException("Notificación no encontrada"));
 
         return mapToDto(notification);
     }
 
     @Override
-    @Transactional(readOnly = true)
     public long countUndeliveredNotifications(UUID userId) {
-        return notificationRepository.countUndeliveredNotifications(userId);
+        return notificationCounterCache.getUndelivered(userId);
     }
 
     @Override
-    @Transactional(readOnly = true)
     public long countUnreadNotifications(UUID userId) {
-        return notificationRepository.countUnreadNotifications(userId);
+        return notificationCounterCache.getUnread(userId);
     }
 
     @Override
@@ -204,6 +232,9 @@ public class NotificationServiceImpl implements NotificationService {
         Notification notification = notificationRepository.findById(notificationId)
                 .orElseThrow(() -> new RuntimeException("Notificación no encontrada"));
 
+        if (isUnread(notification)) {
+            eventPublisher.publishEvent(NotificationCountsChangedEvent.of(notification.getUser().getId(), -1, 0));
+        }
         notification.setReadAt(OffsetDateTime.now());
         notification = notificationRepository.save(notification);
 
@@ -212,19 +243,95 @@ public class NotificationServiceImpl implements NotificationService {
 
     @Override
     @Transactional
-    public int markAllAsRead(UUID userId) {
-        return notificationRepository.markAllAsReadForUser(userId);
+    public NotificationAckResultDto acknowledge(UUID userId, List<UUID> notificationIds, String state) {
+        if (notificationIds == null || notificationIds.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Se requiere al menos una notificación");
+        }
+        if (notificationIds.size() > MAX_ACK_IDS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Máximo " + MAX_ACK_IDS + " notificaciones por confirmación");
+        }
+
+        String normalized = state == null ? "" : state.toUpperCase();
+        String sql = switch (normalized) {
+            case "DELIVERED" -> ACK_DELIVERED_SQL;
+            case "READ" -> ACK_READ_SQL;
+            default -> throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Estado no soportado: " + state + " (DELIVERED o READ)");
+        };
+
+        int updated = jdbcTemplate.update(connection -> {
+            var ps = connection.prepareStatement(sql);
+            ps.setArray(1, connection.createArrayOf("uuid", notificationIds.toArray()));
+            ps.setObject(2, userId);
+            return ps;
+        });
+
+        if (updated > 0) {
+            eventPublisher.publishEvent("READ".equals(normalized)
+                    ? NotificationCountsChangedEvent.of(userId, -updated, 0)
+                    : NotificationCountsChangedEvent.of(userId, 0, -updated));
+        }
+
+        return NotificationAckResultDto.builder()
+                .state(normalized)
+                .requested(notificationIds.size())
+                .updated(updated)
+                .build();
     }
 
     @Override
     @Transactional
+    public int markAllAsRead(UUID userId) {
+        int updated = notificationRepository.markAllAsReadForUser(userId);
+        eventPublisher.publishEvent(NotificationCountsChangedEvent.of(userId, -updated, 0));
+        return updated;
+    }
+
+    @Override
     public void deleteOldNotifications(int daysOld) {
         OffsetDateTime cutoffDate = OffsetDateTime.now().minus(daysOld, ChronoUnit.DAYS);
-        List<Notification> notifications = notificationRepository.findAll().stream()
-                .filter(n -> n.getCreatedAt().isBefore(cutoffDate))
-                .collect(Collectors.toList());
 
-        notificationRepository.deleteAll(notifications);
+        // Solo se encola: el borrado de particiones de meses completos (salvo con archivo)
+        // y la purga por trozos se hacen en el hilo de mantenimiento
+        notificationPurgeJob.start(cutoffDate, true);
+    }
+
+    @Override
+    public NotificationPurgeStatusDto getPurgeStatus() {
+        return notificationPurgeJob.getStatus();
+    }
+
+    @Override
+    public NotificationPurgeStatusDto pausePurge() {
+        notificationPurgeJob.pause();
+        return notificationPurgeJob.getStatus();
+    }
+
+    @Override
+    public NotificationPurgeStatusDto resumePurge() {
+        notificationPurgeJob.resume();
+        return notificationPurgeJob.getStatus();
+    }
+
+    @Override
+    public NotificationPurgeStatusDto cancelPurge() {
+        notificationPurgeJob.cancel();
+        return notificationPurgeJob.getStatus();
+    }
+
+    private boolean isUnread(Notification notification) {
+        return notification.getReadAt() == null && notification.getDeletedAt() == null;
+    }
+
+    /**
+     * QUEUED, SENDING y SENT cuentan como no entregadas; al pasar a DELIVERED o FAILED dejan de contar
+     */
+    private void publishUndeliveredDecrement(Notification notification) {
+        String status = notification.getStatus();
+        if ("QUEUED".equals(status) || "SENDING".equals(status) || "SENT".equals(status)) {
+            eventPublisher.publishEvent(NotificationCountsChangedEvent.of(notification.getUser().getId(), 0, -1));
+        }
     }
 
     private NotificationDto mapToDto(Notification notification) {
@@ -234,6 +341,8 @@ public class NotificationServiceImpl implements NotificationService {
                 .alertTitle(notification.getAlert().getTitle())
                 .alertCategory(notification.getAlert().getCategory())
                 .alertDescription(notification.getAlert().getDescription())
+                .digestAlertIds(notification.getDigestAlertIds() != null
+                        ? List.of(notification.getDigestAlertIds()) : null)
                 .userId(notification.getUser().getId())
                 .channel(notification.getChannel())
                 .status(notification.getStatus())
@@ -0,0 +1,205 @@
+package com.fram.vigilapp.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fram.vigilapp.dto.AlertDto;
+import com.fram.vigilapp.dto.NotificationFanoutResult;
+import com.fram.vigilapp.entity.Alert;
+import com.fram.vigilapp.entity.OutboxEvent;
+import com.fram.vigilapp.event.AlertChangedEvent;
+import com.fram.vigilapp.repository.AlertRepository;
+import com.fram.vigilapp.repository.OutboxEventRepository;
+import com.fram.vigilapp.service.AlertNotificationService;
+import com.fram.vigilapp.service.NotificationService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.OffsetDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Procesa los eventos del outbox (tabla outbox_events).
+ *
+ * AlertServiceImpl solo escribe una fila ALERT_CREATED en la transacción de la
+ * alerta; aquí se hace después la búsqueda de usuarios en zona, la persistencia de
+ * notificaciones y el envío por WebSocket, en outboxExecutor. El procesamiento se
+ * dispara tras el commit de cada alerta y además con un sondeo periódico que
+ * recoge los eventos pendientes de reinicios o fallos (entrega al menos una vez).
+ */
+@Slf4j
+@Component
+public class OutboxDispatcher {
+
+    public static final String ALERT_CREATED = "ALERT_CREATED";
+
+    private static final int BATCH_SIZE = 50;
+    private static final int LEASE_SECONDS = 300;
+    private static final int MAX_ATTEMPTS = 5;
+    private static final long BASE_BACKOFF_SECONDS = 5;
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final AlertRepository alertRepository;
+    private final AlertDtoAssembler alertDtoAssembler;
+    private final NotificationService notificationService;
+    private final AlertNotificationService alertNotificationService;
+    private final NotificationCoalescer notificationCoalescer;
+    private final TransactionTemplate transactionTemplate;
+    private final ThreadPoolTaskExecutor outboxExecutor;
+    private final ObjectMapper objectMapper;
+
+    private record LoadedAlert(Alert alert, AlertDto alertDto) {
+    }
+
+    public OutboxDispatcher(OutboxEventRepository outboxEventRepository,
+                            AlertRepository alertRepository,
+                            AlertDtoAssembler alertDtoAssembler,
+                            NotificationService notificationService,
+                            AlertNotificationService alertNotificationService,
+                            NotificationCoalescer notificationCoalescer,
+                            TransactionTemplate transactionTemplate,
+                            @Qualifier("outboxExecutor") ThreadPoolTaskExecutor outboxExecutor,
+                            ObjectMapper objectMapper) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.alertRepository = alertRepository;
+        this.alertDtoAssembler = alertDtoAssembler;
+        this.notificationService = notificationService;
+        this.alertNotificationService = alertNotificationService;
+        this.notificationCoalescer = notificationCoalescer;
+        this.transactionTemplate = transactionTemplate;
+        this.outboxExecutor = outboxExecutor;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Crea el evento ALERT_CREATED; debe llamarse dentro de la transacción de la alerta
+     */
+    public void enqueueAlertCreated(UUID alertId, String channel) {
+        String payload;
+        try {
+            payload = objectMapper.writeValueAsString(Map.of("channel", channel));
+        } catch (Exception e) {
+            throw new RuntimeException("Error serializando evento del outbox", e);
+        }
+
+        outboxEventRepository.save(OutboxEvent.builder()
+                .eventType(ALERT_CREATED)
+                .aggregateId(alertId)
+                .payload(payload)
+                .status("PENDING")
+                .attempts(0)
+                .availableAt(OffsetDateTime.now())
+                .build());
+    }
+
+    /**
+     * Tras el commit de una alerta nueva su evento ya es visible: procesarlo sin esperar al sondeo.
+     * Corre en el hilo HTTP; es solo un aviso, así que si el executor está lleno se descarta
+     * y el sondeo recoge el evento.
+     */
+    @TransactionalEventListener
+    public void onAlertChanged(AlertChangedEvent event) {
+        if (event.getPreviousStatus() == null && !event.isDeleted()) {
+            try {
+                outboxExecutor.execute(this::dispatchPending);
+            } catch (RejectedExecutionException e) {
+                log.debug("Outbox executor busy, alert {} left for the poller", event.getAlert().getId());
+            }
+        }
+    }
+
+    @Scheduled(fixedDelay = 5000)
+    public void dispatchPending() {
+        List<OutboxEvent> claimed;
+        do {
+            claimed = transactionTemplate.execute(status ->
+                    outboxEventRepository.claimBatch(BATCH_SIZE, LEASE_SECONDS));
+            for (OutboxEvent event : claimed) {
+                try {
+                    outboxExecutor.execute(() -> process(event));
+                } catch (RejectedExecutionException e) {
+                    // Cola llena: lo procesa el hilo que reclamó (sondeo u outbox, nunca HTTP)
+                    process(event);
+                }
+            }
+        } while (claimed.size() == BATCH_SIZE);
+    }
+
+    private void process(OutboxEvent event) {
+        try {
+            if (ALERT_CREATED.equals(event.getEventType())) {
+                handleAlertCreated(event);
+            } else {
+                log.warn("Unknown outbox event type {} ({})", event.getEventType(), event.getId());
+            }
+            transactionTemplate.executeWithoutResult(status -> outboxEventRepository.markDone(event.getId()));
+        } catch (Exception e) {
+            log.error("Error processing outbox event {} (attempt {}): {}",
+                    event.getId(), event.getAttempts(), e.getMessage(), e);
+            markFailed(event, e);
+        }
+    }
+
+    private void handleAlertCreated(OutboxEvent event) throws Exception {
+        String channel = String.valueOf(objectMapper.readValue(event.getPayload(), Map.class)
+                .getOrDefault("channel", "PUSH"));
+
+        // Persistencia de notificaciones en su propia transacción
+        LoadedAlert loaded = transactionTemplate.execute(status -> {
+            Alert alert = alertRepository.findById(event.getAggregateId()).orElse(null);
+            if (alert == null) {
+                return null;
+            }
+            AlertDto alertDto = alertDtoAssembler.toDto(alert, null);
+            // Fuera de las categorías urgentes, las ráfagas se agrupan por usuario
+            NotificationFanoutResult fanout = notificationCoalescer.appliesTo(alert.getCategory())
+                    ? notificationCoalescer.submit(alert, channel)
+                    : notificationService.notifyUsersInZone(alert, channel);
+            log.debug("Outbox event {}: {} recipients", event.getId(), fanout.getRecipientCount());
+            return new LoadedAlert(alert, alertDto);
+        });
+
+        if (loaded == null) {
+            log.info("Alert {} no longer exists, skipping outbox event {}", event.getAggregateId(), event.getId());
+            return;
+        }
+
+        // Envío en tiempo real fuera de la transacción; un fallo aquí no repite la persistencia
+        try {
+            alertNotificationService.notifyNewAlert(loaded.alert(), loaded.alertDto());
+        } catch (Exception e) {
+            log.error("Error sending WebSocket notification for alert {}: {}", event.getAggregateId(), e.getMessage());
+        }
+    }
+
+    private void markFailed(OutboxEvent event, Exception error) {
+        int attempts = event.getAttempts() != null ? event.getAttempts() : MAX_ATTEMPTS;
+        String status = attempts >= MAX_ATTEMPTS ? "FAILED" : "PENDING";
+        OffsetDateTime availableAt = OffsetDateTime.now()
+                .plusSeconds(BASE_BACKOFF_SECONDS << Math.min(attempts, 10));
+        String message = String.valueOf(error.getMessage());
+
+        try {
+            transactionTemplate.executeWithoutResult(s ->
+                    outboxEventRepository.markFailed(event.getId(), status, availableAt,
+                            message.length() > 1000 ? message.substring(0, 1000) : message));
+        } catch (Exception e) {
+            // La reserva vence sola y el evento se vuelve a reclamar
+            log.error("Error marking outbox event {} as failed: {}", event.getId(), e.getMessage());
+        }
+    }
+
+    @Scheduled(cron = "0 45 4 * * *")
+    public void purgeProcessed() {
+        OffsetDateTime cutoff = OffsetDateTime.now().minus(7, ChronoUnit.DAYS);
+        Integer deleted = transactionTemplate.execute(status -> outboxEventRepository.deleteProcessedBefore(cutoff));
+        log.info("Purged {} processed outbox events", deleted);
+    }
+}
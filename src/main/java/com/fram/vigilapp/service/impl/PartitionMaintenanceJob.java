@@ -0,0 +1,121 @@
+package com.fram.vigilapp.service.impl;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.OffsetDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * Mantiene las particiones mensuales de notifications (ver schema-15 en db.changelog.xml).
+ *
+ * Crea por adelantado las particiones de los próximos meses y aplica la retención
+ * desenganchando y borrando particiones completas, lo que evita los DELETE fila a
+ * fila y el vacuum posterior. Los límites de cada partición están en UTC.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PartitionMaintenanceJob implements ApplicationRunner {
+
+    private static final String PARENT_TABLE = "notifications";
+    private static final String PARTITION_PREFIX = "notifications_p";
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${notifications.partitions.months-ahead:3}")
+    private int monthsAhead;
+
+    // Meses completos que se conservan; 0 desactiva la retención automática
+    @Value("${notifications.partitions.retention-months:12}")
+    private int retentionMonths;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        maintain();
+    }
+
+    @Scheduled(cron = "0 30 3 * * *")
+    public void maintain() {
+        try {
+            YearMonth current = YearMonth.now(ZoneOffset.UTC);
+            for (int i = 0; i <= monthsAhead; i++) {
+                createPartition(current.plusMonths(i));
+            }
+
+            if (retentionMonths > 0) {
+                dropPartitionsBefore(current.minusMonths(retentionMonths));
+            }
+        } catch (Exception e) {
+            log.error("Error maintaining notification partitions: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Desengancha y borra las particiones cuyo mes termina antes de cutoff.
+     * Las filas de meses parcialmente afectados quedan para un DELETE normal.
+     * @return número de particiones borradas
+     */
+    public int dropPartitionsOlderThan(OffsetDateTime cutoff) {
+        return dropPartitionsBefore(YearMonth.from(cutoff.withOffsetSameInstant(ZoneOffset.UTC)));
+    }
+
+    private int dropPartitionsBefore(YearMonth firstKept) {
+        List<String> partitions = jdbcTemplate.queryForList(
+                "SELECT c.relname FROM pg_inherits i " +
+                        "JOIN pg_class c ON c.oid = i.inhrelid " +
+                        "JOIN pg_class p ON p.oid = i.inhparent " +
+                        "WHERE p.relname = ?",
+                String.class, PARENT_TABLE);
+
+        int dropped = 0;
+        for (String partition : partitions) {
+            YearMonth month = monthOf(partition);
+            if (month == null || !month.isBefore(firstKept)) {
+                continue;
+            }
+
+            jdbcTemplate.execute("ALTER TABLE " + PARENT_TABLE + " DETACH PARTITION " + partition);
+            jdbcTemplate.execute("DROP TABLE " + partition);
+            dropped++;
+            log.info("Dropped notification partition {}", partition);
+        }
+        return dropped;
+    }
+
+    private void createPartition(YearMonth month) {
+        String partition = PARTITION_PREFIX + month.format(SUFFIX);
+        OffsetDateTime from = month.atDay(1).atStartOfDay().atOffset(ZoneOffset.UTC);
+        OffsetDateTime to = month.plusMonths(1).atDay(1).atStartOfDay().atOffset(ZoneOffset.UTC);
+
+        try {
+            jdbcTemplate.execute(String.format(
+                    "CREATE TABLE IF NOT EXISTS %s PARTITION OF %s FOR VALUES FROM ('%s') TO ('%s')",
+                    partition, PARENT_TABLE, from, to));
+        } catch (Exception e) {
+            // Falla si la partición DEFAULT ya tiene filas de ese mes
+            log.warn("Could not create notification partition {}: {}", partition, e.getMessage());
+        }
+    }
+
+    private YearMonth monthOf(String partition) {
+        if (!partition.startsWith(PARTITION_PREFIX)) {
+            return null;
+        }
+        try {
+            return YearMonth.parse(partition.substring(PARTITION_PREFIX.length()), SUFFIX);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package com.fram.vigilapp.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fram.vigilapp.event.ClusterAlertEvent;
+import com.fram.vigilapp.service.ClusterEventBus;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Bus entre instancias sobre LISTEN/NOTIFY de PostgreSQL.
+ *
+ * publish solo encola; cada flush-interval-ms los eventos pendientes se empaquetan en
+ * arrays JSON de hasta MAX_PAYLOAD_BYTES (Postgres admite 8000 bytes por NOTIFY) y se
+ * envían todos con un único SELECT pg_notify(...) FROM unnest(...), así que una ráfaga
+ * de alertas son pocas idas y vueltas. Cada instancia escucha el canal en una conexión
+ * propia, fuera del pool, y recibe cada NOTIFY una vez (también los suyos).
+ * Los eventos no se persisten: si una instancia está desconectada se pierden, igual que
+ * los frames de sus sesiones; las notificaciones guardadas no dependen de este bus.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "cluster.bus.type", havingValue = "postgres")
+public class PostgresClusterEventBus implements ClusterEventBus {
+
+    private static final String NOTIFY_SQL =
+            "SELECT pg_notify(?, payload) FROM unnest(CAST(? AS text[])) AS payload";
+    private static final int MAX_PAYLOAD_BYTES = 7900;
+    private static final int POLL_TIMEOUT_MS = 1000;
+    private static final long RECONNECT_DELAY_MS = 5000;
+
+    private final DataSourceProperties dataSourceProperties;
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final String channel;
+
+    private final Queue<ClusterAlertEvent> pending = new ConcurrentLinkedQueue<>();
+    private volatile boolean running;
+    private Thread listener;
+
+    public PostgresClusterEventBus(DataSourceProperties dataSourceProperties,
+                                   JdbcTemplate jdbcTemplate,
+                                   ObjectMapper objectMapper,
+                                   ApplicationEventPublisher eventPublisher,
+                                   @Value("${cluster.bus.channel:vigilapp_alerts}") String channel) {
+        if (!channel.matches("[a-z_][a-z0-9_]*")) {
+            throw new IllegalArgumentException("Nombre de canal no válido: " + channel);
+        }
+        this.dataSourceProperties = dataSourceProperties;
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.eventPublisher = eventPublisher;
+        this.channel = channel;
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        listener = new Thread(this::listen, "cluster-bus-listener");
+        listener.setDaemon(true);
+        listener.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        flush();
+        running = false;
+        listener.interrupt();
+    }
+
+    @Override
+    public void publish(ClusterAlertEvent event) {
+        pending.add(event);
+    }
+
+    @Scheduled(fixedDelayString = "${cluster.bus.flush-interval-ms:50}")
+    public void flush() {
+        List<ClusterAlertEvent> events = new ArrayList<>();
+        ClusterAlertEvent event;
+        while ((event = pending.poll()) != null) {
+            events.add(event);
+        }
+        if (events.isEmpty()) {
+            return;
+        }
+
+        List<String> payloads = pack(events);
+        try {
+            jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+                try (PreparedStatement ps = connection.prepareStatement(NOTIFY_SQL)) {
+                    ps.setString(1, channel);
+                    ps.setArray(2, connection.createArrayOf("text", payloads.toArray()));
+                    ps.executeQuery().close();
+                }
+                return null;
+            });
+            log.debug("Published {} cluster events in {} notifications", events.size(), payloads.size());
+        } catch (Exception e) {
+            log.error("Error publishing {} cluster events: {}", events.size(), e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Agrupa los eventos en arrays JSON que quepan en un NOTIFY
+     */
+    private List<String> pack(List<ClusterAlertEvent> events) {
+        List<String> payloads = new ArrayList<>();
+        StringBuilder current = new StringBuilder("[");
+        int currentBytes = 1;
+
+        for (ClusterAlertEvent event : events) {
+            String json = toJson(event);
+            if (json == null) {
+                continue;
+            }
+            int bytes = utf8Length(json);
+            if (currentBytes > 1 && currentBytes + bytes + 2 > MAX_PAYLOAD_BYTES) {
+                payloads.add(current.append(']').toString());
+                current = new StringBuilder("[");
+                currentBytes = 1;
+            }
+            if (currentBytes > 1) {
+                current.append(',');
+                currentBytes++;
+            }
+            current.append(json);
+            currentBytes += bytes;
+        }
+
+        if (currentBytes > 1) {
+            payloads.add(current.append(']').toString());
+        }
+        return payloads;
+    }
+
+    private String toJson(ClusterAlertEvent event) {
+        try {
+            String json = objectMapper.writeValueAsString(event);
+            if (utf8Length(json) + 2 > MAX_PAYLOAD_BYTES && event.getAlert().getDescription() != null) {
+                // Descripción demasiado larga para un NOTIFY: el frame sale sin ella
+                event.getAlert().setDescription(null);
+                json = objectMapper.writeValueAsString(event);
+            }
+            if (utf8Length(json) + 2 > MAX_PAYLOAD_BYTES) {
+                log.warn("Cluster event for alert {} too large, dropped", event.getAlert().getId());
+                return null;
+            }
+            return json;
+        } catch (JsonProcessingException e) {
+            log.error("Error serializing cluster event: {}", e.getMessage(), e);
+            return null;
+        }
+    }
+
+    private void listen() {
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(dataSourceProperties.determineUrl(),
+                    dataSourceProperties.determineUsername(), dataSourceProperties.determinePassword())) {
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + channel);
+                }
+                log.info("Listening for cluster events on channel {}", channel);
+
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(POLL_TIMEOUT_MS);
+                    if (notifications == null) {
+                        continue;
+                    }
+                    for (PGNotification notification : notifications) {
+                        dispatch(notification.getParameter());
+                    }
+                }
+            } catch (SQLException e) {
+                if (!running) {
+                    return;
+                }
+                log.error("Cluster bus listener disconnected, retrying in {} ms: {}", RECONNECT_DELAY_MS, e.getMessage());
+                try {
+                    Thread.sleep(RECONNECT_DELAY_MS);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void dispatch(String payload) {
+        List<ClusterAlertEvent> events;
+        try {
+            events = objectMapper.readValue(payload, new TypeReference<List<ClusterAlertEvent>>() {
+            });
+        } catch (JsonProcessingException e) {
+            log.error("Invalid cluster notification payload: {}", e.getMessage());
+            return;
+        }
+
+        for (ClusterAlertEvent event : events) {
+            try {
+                eventPublisher.publishEvent(event);
+            } catch (Exception e) {
+                log.error("Error handling cluster event {}: {}", event.getType(), e.getMessage(), e);
+            }
+        }
+    }
+
+    private static int utf8Length(String value) {
+        return value.getBytes(StandardCharsets.UTF_8).length;
+    }
+}
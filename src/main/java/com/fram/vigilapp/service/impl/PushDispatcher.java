@@ -0,0 +1,276 @@
+package com.fram.vigilapp.service.impl;
+
+import com.fram.vigilapp.dto.PushMessage;
+import com.fram.vigilapp.dto.PushSendResult;
+import com.fram.vigilapp.entity.UserDevice;
+import com.fram.vigilapp.event.NotificationCountsChangedEvent;
+import com.fram.vigilapp.repository.NotificationRepository;
+import com.fram.vigilapp.repository.UserDeviceRepository;
+import com.fram.vigilapp.service.PushProvider;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.OffsetDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Entrega las notificaciones PUSH en estado QUEUED.
+ *
+ * Cada lote pasa por tres pasos para no llamar a los proveedores con filas bloqueadas:
+ * una transacción corta lo reserva (FOR UPDATE SKIP LOCKED) pasándolo a SENDING con un
+ * vencimiento y busca los dispositivos de todos sus usuarios en una consulta; después,
+ * sin transacción, se agrupan los mensajes por proveedor y se envían en lotes de
+ * getMaxBatchSize; por último otra transacción corta aplica los cambios de estado como
+ * UPDATE en bloque, solo sobre las filas que siguen reservadas por este lote.
+ *
+ * Una notificación pasa a SENT si al menos uno de sus dispositivos la aceptó, a FAILED
+ * si todos fallaron (se reintenta con backoff, ver NotificationRetryWorker) y a NO_DEVICE,
+ * estado final que no se reintenta, si su usuario no tiene ningún dispositivo con
+ * proveedor disponible. Si una instancia cae a mitad de envío, las reservas vencidas
+ * vuelven a QUEUED al empezar el siguiente ciclo.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PushDispatcher {
+
+    private final NotificationRepository notificationRepository;
+    private final UserDeviceRepository userDeviceRepository;
+    private final ObjectProvider<PushProvider> pushProviders;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final NotificationRetryWorker notificationRetryWorker;
+
+    @Value("${push.dispatcher.enabled:true}")
+    private boolean enabled;
+
+    @Value("${push.dispatcher.batch-size:500}")
+    private int batchSize;
+
+    @Value("${push.dispatcher.lease-seconds:120}")
+    private long leaseSeconds;
+
+    private record QueuedPush(UUID notificationId, UUID userId, UUID alertId,
+                              String title, String category, String description) {
+    }
+
+    /**
+     * Lote reservado: sus notificaciones, los mensajes ya agrupados por proveedor y el
+     * vencimiento de la reserva, que identifica las filas de este lote al cerrarlo
+     */
+    private record Claim(List<QueuedPush> batch,
+                         Map<PushProvider, List<PushMessage>> messagesByProvider,
+                         OffsetDateTime leaseUntil) {
+    }
+
+    @Scheduled(fixedDelay = 2000)
+    public void dispatchQueued() {
+        if (!enabled) {
+            return;
+        }
+
+        try {
+            Integer released = transactionTemplate.execute(status -> notificationRepository.releaseExpiredPushLeases());
+            if (released != null && released > 0) {
+                log.warn("Released {} push notifications with an expired lease", released);
+            }
+
+            int claimed;
+            do {
+                claimed = dispatchBatch();
+            } while (claimed == batchSize);
+        } catch (Exception e) {
+            log.error("Error dispatching push notifications: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Reserva, envío fuera de transacción y cambio de estado de un lote
+     * @return número de notificaciones reservadas
+     */
+    private int dispatchBatch() {
+        Claim claim = transactionTemplate.execute(status -> claimBatch());
+        if (claim == null || claim.batch().isEmpty()) {
+            return 0;
+        }
+
+        Set<UUID> sent = new HashSet<>();
+        Set<UUID> attempted = new HashSet<>();
+        Set<String> invalidTokens = new HashSet<>();
+        for (Map.Entry<PushProvider, List<PushMessage>> entry : claim.messagesByProvider().entrySet()) {
+            PushProvider provider = entry.getKey();
+            List<PushMessage> messages = entry.getValue();
+            int chunk = Math.max(1, provider.getMaxBatchSize());
+
+            for (int from = 0; from < messages.size(); from += chunk) {
+                List<PushMessage> slice = messages.subList(from, Math.min(from + chunk, messages.size()));
+                PushSendResult result = send(provider, slice);
+                for (PushMessage message : slice) {
+                    attempted.add(message.getNotificationId());
+                    if (!result.getFailedTokens().contains(message.getToken())
+                            && !result.getInvalidTokens().contains(message.getToken())) {
+                        sent.add(message.getNotificationId());
+                    }
+                }
+                invalidTokens.addAll(result.getInvalidTokens());
+            }
+        }
+
+        transactionTemplate.executeWithoutResult(status -> complete(claim, sent, attempted, invalidTokens));
+        return claim.batch().size();
+    }
+
+    /**
+     * Reserva un lote en SENDING y prepara sus mensajes; se ejecuta dentro de una transacción
+     */
+    private Claim claimBatch() {
+        // Postgres guarda microsegundos: truncar para que la comparación al cerrar sea exacta
+        OffsetDateTime leaseUntil = OffsetDateTime.now().plusSeconds(leaseSeconds).truncatedTo(ChronoUnit.MICROS);
+
+        List<QueuedPush> batch = new ArrayList<>();
+        for (Object[] row : notificationRepository.claimQueuedPush(batchSize, leaseUntil)) {
+            batch.add(new QueuedPush((UUID) row[0], (UUID) row[1], (UUID) row[2],
+                    (String) row[3], (String) row[4], (String) row[5]));
+        }
+        if (batch.isEmpty()) {
+            return new Claim(batch, Map.of(), leaseUntil);
+        }
+
+        Set<UUID> userIds = new HashSet<>();
+        for (QueuedPush push : batch) {
+            userIds.add(push.userId());
+        }
+        Map<UUID, List<UserDevice>> devicesByUser = new HashMap<>();
+        for (UserDevice device : userDeviceRepository.findByUserIdIn(userIds)) {
+            devicesByUser.computeIfAbsent(device.getUser().getId(), k -> new ArrayList<>()).add(device);
+        }
+
+        // Un mensaje por (notificación, dispositivo), agrupados por proveedor
+        Map<PushProvider, List<PushMessage>> messagesByProvider = new LinkedHashMap<>();
+        for (QueuedPush push : batch) {
+            for (UserDevice device : devicesByUser.getOrDefault(push.userId(), List.of())) {
+                PushProvider provider = providerFor(device.getProvider());
+                if (provider == null) {
+                    continue;
+                }
+                messagesByProvider.computeIfAbsent(provider, k -> new ArrayList<>()).add(toMessage(push, device));
+            }
+        }
+        return new Claim(batch, messagesByProvider, leaseUntil);
+    }
+
+    /**
+     * Aplica el resultado del envío a las filas que siguen reservadas por este lote; las que
+     * el usuario confirmó entretanto o que otra instancia recuperó tras vencer la reserva no
+     * se tocan. Se ejecuta dentro de una transacción.
+     */
+    private void complete(Claim claim, Set<UUID> sent, Set<UUID> attempted, Set<String> invalidTokens) {
+        List<UUID> claimedIds = new ArrayList<>();
+        for (QueuedPush push : claim.batch()) {
+            claimedIds.add(push.notificationId());
+        }
+
+        List<UUID> delivered = new ArrayList<>();
+        List<UUID> failed = new ArrayList<>();
+        List<UUID> noDevice = new ArrayList<>();
+        Map<UUID, Integer> finishedByUser = new HashMap<>();
+        for (Object[] row : notificationRepository.lockLeasedPush(claimedIds, claim.leaseUntil())) {
+            UUID notificationId = (UUID) row[0];
+            if (sent.contains(notificationId)) {
+                delivered.add(notificationId);
+                continue;
+            }
+            if (attempted.contains(notificationId)) {
+                failed.add(notificationId);
+            } else {
+                noDevice.add(notificationId);
+            }
+            finishedByUser.merge((UUID) row[1], 1, Integer::sum);
+        }
+
+        OffsetDateTime now = OffsetDateTime.now();
+        if (!delivered.isEmpty()) {
+            notificationRepository.updateStatus(delivered, "SENT", now);
+        }
+        if (!failed.isEmpty()) {
+            // FAILED con el siguiente intento programado (NotificationRetryWorker los reencola)
+            notificationRetryWorker.markFailed(failed);
+        }
+        if (!noDevice.isEmpty()) {
+            // Sin dispositivo al que enviar: reintentar no cambiaría nada
+            notificationRepository.updateStatus(noDevice, "NO_DEVICE", null);
+        }
+        // FAILED y NO_DEVICE dejan de contar como no entregadas
+        finishedByUser.forEach((userId, count) ->
+                eventPublisher.publishEvent(NotificationCountsChangedEvent.of(userId, 0, -count)));
+
+        if (!invalidTokens.isEmpty()) {
+            int removed = userDeviceRepository.deleteByTokenIn(invalidTokens);
+            log.info("Removed {} devices with invalid push tokens", removed);
+        }
+
+        int skipped = claimedIds.size() - delivered.size() - failed.size() - noDevice.size();
+        log.info("Push batch: {} claimed, {} sent, {} failed, {} without devices, {} no longer leased",
+                claimedIds.size(), delivered.size(), failed.size(), noDevice.size(), skipped);
+    }
+
+    private PushSendResult send(PushProvider provider, List<PushMessage> messages) {
+        try {
+            PushSendResult result = provider.send(messages);
+            if (result.getFailedTokens() == null) {
+                result.setFailedTokens(Set.of());
+            }
+            if (result.getInvalidTokens() == null) {
+                result.setInvalidTokens(Set.of());
+            }
+            return result;
+        } catch (Exception e) {
+            // Todo el lote cuenta como fallido; el resto de lotes sigue
+            log.error("Push provider {} failed for {} messages: {}",
+                    provider.getClass().getSimpleName(), messages.size(), e.getMessage());
+            Set<String> tokens = new HashSet<>();
+            for (PushMessage message : messages) {
+                tokens.add(message.getToken());
+            }
+            return PushSendResult.builder()
+                    .failedTokens(tokens)
+                    .invalidTokens(Set.of())
+                    .build();
+        }
+    }
+
+    private PushProvider providerFor(String provider) {
+        return pushProviders.orderedStream()
+                .filter(pushProvider -> pushProvider.supports(provider))
+                .findFirst()
+                .orElse(null);
+    }
+
+    private PushMessage toMessage(QueuedPush push, UserDevice device) {
+        return PushMessage.builder()
+                .notificationId(push.notificationId())
+                .provider(device.getProvider())
+                .token(device.getToken())
+                .title(push.title())
+                .body(push.description())
+                .data(Map.of(
+                        "alertId", String.valueOf(push.alertId()),
+                        "category", String.valueOf(push.category()),
+                        "notificationId", String.valueOf(push.notificationId())))
+                .build();
+    }
+}
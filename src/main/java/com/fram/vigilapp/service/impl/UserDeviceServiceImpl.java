@@ -0,0 +1,79 @@
+package com.fram.vigilapp.service.impl;
+
+import com.fram.vigilapp.dto.SaveUserDeviceDto;
+import com.fram.vigilapp.dto.UserDeviceDto;
+import com.fram.vigilapp.entity.User;
+import com.fram.vigilapp.entity.UserDevice;
+import com.fram.vigilapp.repository.UserDeviceRepository;
+import com.fram.vigilapp.repository.UserRepository;
+import com.fram.vigilapp.service.UserDeviceService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class UserDeviceServiceImpl implements UserDeviceService {
+
+    private final UserDeviceRepository userDeviceRepository;
+    private final UserRepository userRepository;
+
+    @Override
+    @Transactional
+    public UserDeviceDto registerDevice(UUID userId, SaveUserDeviceDto saveUserDeviceDto) {
+        User user = userRepository.getReferenceById(userId);
+        OffsetDateTime now = OffsetDateTime.now();
+
+        // El token identifica al dispositivo: si ya existe se reasigna al usuario actual
+        UserDevice device = userDeviceRepository.findByToken(saveUserDeviceDto.getToken()).orElse(null);
+        if (device == null) {
+            device = UserDevice.builder()
+                    .user(user)
+                    .provider(saveUserDeviceDto.getProvider())
+                    .token(saveUserDeviceDto.getToken())
+                    .createdAt(now)
+                    .lastSeenAt(now)
+                    .build();
+        } else {
+            device.setUser(user);
+            device.setProvider(saveUserDeviceDto.getProvider());
+            device.setLastSeenAt(now);
+        }
+
+        device = userDeviceRepository.save(device);
+        log.info("Device {} ({}) registered for user {}", device.getId(), device.getProvider(), userId);
+        return mapToDto(device);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<UserDeviceDto> getUserDevices(UUID userId) {
+        return userDeviceRepository.findByUserId(userId).stream()
+                .map(this::mapToDto)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    @Transactional
+    public void unregisterDevice(UUID userId, String token) {
+        userDeviceRepository.deleteByUserIdAndToken(userId, token);
+    }
+
+    private UserDeviceDto mapToDto(UserDevice device) {
+        return UserDeviceDto.builder()
+                .id(device.getId())
+                .userId(device.getUser().getId())
+                .provider(device.getProvider())
+                .token(device.getToken())
+                .createdAt(device.getCreatedAt())
+                .lastSeenAt(device.getLastSeenAt())
+                .build();
+    }
+}
@@ -4,6 +4,7 @@ import com.fram.vigilapp.dto.SaveUserZoneDto;
 import com.fram.vigilapp.dto.UserZoneDto;
 import com.fram.vigilapp.entity.User;
 import com.fram.vigilapp.entity.UserZone;
+import com.fram.vigilapp.event.UserZoneChangedEvent;
 import com.fram.vigilapp.repository.UserZoneRepository;
 import com.fram.vigilapp.service.UserZoneService;
 import lombok.RequiredArgsConstructor;
@@ -13,6 +14,7 @@ import org.locationtech.jts.geom.GeometryFactory;
 import org.locationtech.jts.geom.Point;
 import org.locationtech.jts.geom.Polygon;
 import org.locationtech.jts.util.GeometricShapeFactory;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -24,6 +26,7 @@ import java.util.UUID;
 public class UserZoneServiceImpl implements UserZoneService {
 
     private final UserZoneRepository userZoneRepository;
+    private final ApplicationEventPublisher eventPublisher;
     private final GeometryFactory geometryFactory = new GeometryFactory();
 
     @Override
@@ -69,6 +72,9 @@ public class UserZoneServiceImpl implements UserZoneService {
             throw e;
         }
 
+        eventPublisher.publishEvent(UserZoneChangedEvent.saved(user.getId(), zonePolygon,
+                saveUserZoneDto.getCenterLatitude(), saveUserZoneDto.getCenterLongitude(), saveUserZoneDto.getRadiusM()));
+
         return mapToDto(userZone, saveUserZoneDto.getCenterLatitude(), saveUserZoneDto.getCenterLongitude());
     }
 
@@ -90,7 +96,10 @@ public class UserZoneServiceImpl implements UserZoneService {
     @Override
     @Transactional
     public void deleteUserZone(UUID userId) {
-        userZoneRepository.findByUserId(userId).ifPresent(userZoneRepository::delete);
+        userZoneRepository.findByUserId(userId).ifPresent(userZone -> {
+            userZoneRepository.delete(userZone);
+            eventPublisher.publishEvent(UserZoneChangedEvent.deleted(userId));
+        });
     }
 
     private Polygon createCirclePolygon(Double latitude, Double longitude, Integer radiusM) {
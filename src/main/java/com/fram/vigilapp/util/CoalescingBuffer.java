@@ -0,0 +1,99 @@
+package com.fram.vigilapp.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Agrupa elementos por clave en ventanas de tiempo.
+ *
+ * El primer elemento de una clave sin ventana abierta se entrega de inmediato
+ * (offer devuelve true) y abre una ventana de windowMs. Los que llegan mientras la
+ * ventana está abierta se acumulan y drainExpired los devuelve juntos al cerrarla;
+ * si había pendientes se abre otra ventana, así que durante una ráfaga cada clave
+ * recibe como mucho una entrega por ventana. Los duplicados se descartan (equals).
+ * Es thread-safe.
+ */
+public class CoalescingBuffer<K, V> {
+
+    private final long windowMs;
+    private final Map<K, Window<V>> windows = new HashMap<>();
+
+    private static class Window<V> {
+        long closesAt;
+        final Set<V> pending = new LinkedHashSet<>();
+
+        Window(long closesAt) {
+            this.closesAt = closesAt;
+        }
+    }
+
+    public CoalescingBuffer(long windowMs) {
+        if (windowMs <= 0) {
+            throw new IllegalArgumentException("La ventana debe ser positiva");
+        }
+        this.windowMs = windowMs;
+    }
+
+    /**
+     * @return true si el elemento debe entregarse ya; false si quedó acumulado
+     */
+    public synchronized boolean offer(K key, V value, long nowMs) {
+        Window<V> window = windows.get(key);
+        if (window == null || (window.closesAt <= nowMs && window.pending.isEmpty())) {
+            windows.put(key, new Window<>(nowMs + windowMs));
+            return true;
+        }
+        window.pending.add(value);
+        return false;
+    }
+
+    /**
+     * Cierra las ventanas vencidas y devuelve sus elementos acumulados
+     */
+    public synchronized Map<K, List<V>> drainExpired(long nowMs) {
+        Map<K, List<V>> drained = new HashMap<>();
+        Iterator<Map.Entry<K, Window<V>>> it = windows.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<K, Window<V>> entry = it.next();
+            Window<V> window = entry.getValue();
+            if (window.closesAt > nowMs) {
+                continue;
+            }
+            if (window.pending.isEmpty()) {
+                it.remove();
+                continue;
+            }
+            drained.put(entry.getKey(), new ArrayList<>(window.pending));
+            window.pending.clear();
+            window.closesAt = nowMs + windowMs;
+        }
+        return drained;
+    }
+
+    /**
+     * Vacía todas las ventanas (al apagar)
+     */
+    public synchronized Map<K, List<V>> drainAll() {
+        Map<K, List<V>> drained = new HashMap<>();
+        for (Map.Entry<K, Window<V>> entry : windows.entrySet()) {
+            if (!entry.getValue().pending.isEmpty()) {
+                drained.put(entry.getKey(), new ArrayList<>(entry.getValue().pending));
+            }
+        }
+        windows.clear();
+        return drained;
+    }
+
+    public synchronized void remove(K key) {
+        windows.remove(key);
+    }
+
+    public synchronized int size() {
+        return windows.size();
+    }
+}
@@ -0,0 +1,43 @@
+package com.fram.vigilapp.util;
+
+import org.locationtech.jts.geom.Envelope;
+import org.springframework.stereotype.Service;
+
+@Service
+public class GeoUtil {
+
+    // Radio medio de la Tierra (IUGG), en metros
+    private static final double EARTH_RADIUS_M = 6_371_008.8;
+
+    // Metros por grado de latitud (aproximado)
+    public static final double METERS_PER_DEGREE = 111320.0;
+
+    /**
+     * Distancia en metros entre dos puntos usando la fórmula de haversine
+     */
+    public double haversineMeters(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_M * Math.asin(Math.min(1.0, Math.sqrt(a)));
+    }
+
+    /**
+     * Envelope (lon/lat en grados) que contiene el círculo de radio radiusM
+     * alrededor del punto. Sirve como primer filtro antes de haversine.
+     */
+    public Envelope envelopeAround(double latitude, double longitude, double radiusM) {
+        double dLat = radiusM / METERS_PER_DEGREE;
+        double cosLat = Math.cos(Math.toRadians(latitude));
+        double dLon = cosLat < 1e-6 ? 180.0 : Math.min(180.0, dLat / cosLat);
+
+        return new Envelope(
+                longitude - dLon,
+                longitude + dLon,
+                Math.max(-90.0, latitude - dLat),
+                Math.min(90.0, latitude + dLat)
+        );
+    }
+}
@@ -0,0 +1,170 @@
+package com.fram.vigilapp.util;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Rueda de temporización jerárquica para plazos de muchos elementos.
+ *
+ * Programar y cancelar son O(1). advance() recorre solo los ticks transcurridos:
+ * el nivel 0 tiene una ranura por tick y cada nivel superior cubre wheelSize
+ * ranuras del anterior; cuando el nivel inferior da la vuelta, la ranura
+ * correspondiente del superior se redistribuye hacia abajo.
+ * Los elementos se comparan con equals/hashCode (usar ids). Es thread-safe.
+ */
+public class HierarchicalTimingWheel<T> {
+
+    private final long tickMs;
+    private final int wheelSize;
+    private final int levels;
+
+    // buckets[nivel][ranura]
+    private final List<List<Set<T>>> buckets = new ArrayList<>();
+
+    // elemento -> plazo en ticks y ranura que lo contiene
+    private final Map<T, Slot> slots = new HashMap<>();
+
+    private long currentTick;
+
+    private record Slot(long deadlineTick, int level, int index) {
+    }
+
+    public HierarchicalTimingWheel(long tickMs, int wheelSize, int levels, long startMs) {
+        if (tickMs <= 0 || wheelSize < 2 || levels < 1) {
+            throw new IllegalArgumentException("Parámetros de la rueda inválidos");
+        }
+        this.tickMs = tickMs;
+        this.wheelSize = wheelSize;
+        this.levels = levels;
+        this.currentTick = startMs / tickMs;
+
+        for (int level = 0; level < levels; level++) {
+            List<Set<T>> wheel = new ArrayList<>(wheelSize);
+            for (int i = 0; i < wheelSize; i++) {
+                wheel.add(new HashSet<>());
+            }
+            buckets.add(wheel);
+        }
+    }
+
+    /**
+     * Programa (o reprograma) el elemento para deadlineMs. Un plazo ya vencido
+     * se entrega en el siguiente advance().
+     */
+    public synchronized void schedule(T item, long deadlineMs) {
+        cancel(item);
+        place(item, Math.max(ceilDiv(deadlineMs, tickMs), currentTick + 1));
+    }
+
+    public synchronized boolean cancel(T item) {
+        Slot slot = slots.remove(item);
+        if (slot == null) {
+            return false;
+        }
+        buckets.get(slot.level()).get(slot.index()).remove(item);
+        return true;
+    }
+
+    public synchronized boolean contains(T item) {
+        return slots.containsKey(item);
+    }
+
+    public synchronized int size() {
+        return slots.size();
+    }
+
+    /**
+     * Avanza la rueda hasta nowMs y devuelve los elementos cuyo plazo venció
+     */
+    public synchronized List<T> advance(long nowMs) {
+        long targetTick = nowMs / tickMs;
+        List<T> expired = new ArrayList<>();
+
+        while (currentTick < targetTick) {
+            currentTick++;
+
+            // Redistribuir desde el nivel más alto que completa una vuelta en este tick
+            long span = 1;
+            int topLevel = 0;
+            for (int level = 1; level < levels; level++) {
+                span *= wheelSize;
+                if (currentTick % span != 0) {
+                    break;
+                }
+                topLevel = level;
+            }
+            for (int level = topLevel; level >= 1; level--) {
+                cascade(level, expired);
+            }
+
+            Set<T> due = buckets.get(0).get((int) (currentTick % wheelSize));
+            List<T> items = new ArrayList<>(due);
+            due.clear();
+            for (T item : items) {
+                Slot slot = slots.remove(item);
+                if (slot.deadlineTick() <= currentTick) {
+                    expired.add(item);
+                } else {
+                    // Aparcado más allá del alcance (rueda de un solo nivel)
+                    place(item, slot.deadlineTick());
+                }
+            }
+        }
+
+        return expired;
+    }
+
+    private void cascade(int level, List<T> expired) {
+        Set<T> bucket = buckets.get(level).get((int) ((currentTick / pow(level)) % wheelSize));
+        List<T> items = new ArrayList<>(bucket);
+        bucket.clear();
+
+        for (T item : items) {
+            Slot slot = slots.remove(item);
+            if (slot.deadlineTick() <= currentTick) {
+                expired.add(item);
+            } else {
+                place(item, slot.deadlineTick());
+            }
+        }
+    }
+
+    private void place(T item, long deadlineTick) {
+        long delta = deadlineTick - currentTick;
+
+        int level = 0;
+        long span = wheelSize;
+        while (level < levels - 1 && delta >= span) {
+            level++;
+            span *= wheelSize;
+        }
+
+        int index;
+        if (delta >= span) {
+            // Más allá del alcance de la rueda: se aparca en la última ranura del nivel
+            // superior y se vuelve a colocar cuando esa ranura se redistribuya
+            index = (int) ((currentTick / pow(level) + wheelSize - 1) % wheelSize);
+        } else {
+            index = (int) ((deadlineTick / pow(level)) % wheelSize);
+        }
+
+        buckets.get(level).get(index).add(item);
+        slots.put(item, new Slot(deadlineTick, level, index));
+    }
+
+    private long pow(int level) {
+        long result = 1;
+        for (int i = 0; i < level; i++) {
+            result *= wheelSize;
+        }
+        return result;
+    }
+
+    private static long ceilDiv(long a, long b) {
+        return -Math.floorDiv(-a, b);
+    }
+}
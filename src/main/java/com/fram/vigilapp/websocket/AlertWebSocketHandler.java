@@ -1,64 +1,76 @@
 package com.fram.vigilapp.websocket;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fram.vigilapp.dto.NotificationAckResultDto;
 import com.fram.vigilapp.repository.UserRepository;
-import com.fram.vigilapp.service.AlertNotificationService;
+import com.fram.vigilapp.service.NotificationService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Component;
 import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.PongMessage;
+import org.springframework.web.socket.SubProtocolCapable;
 import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
 import org.springframework.web.socket.handler.TextWebSocketHandler;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Handler para WebSocket raw (sin STOMP)
- * Maneja conexiones desde React Native
+ * Maneja conexiones desde React Native. Las sesiones y la presencia de usuarios
+ * (varias sesiones por usuario) están en SessionRegistry.
+ * Los clientes pueden pedir el subprotocolo vigilapp.bin.v1 para recibir los eventos
+ * de alerta en binario (BinaryFrameCodec); sin subprotocolo todo va en JSON.
  */
 @Component
 @Slf4j
 @RequiredArgsConstructor
-public class AlertWebSocketHandler extends TextWebSocketHandler {
+public class AlertWebSocketHandler extends TextWebSocketHandler implements SubProtocolCapable {
 
     private final ObjectMapper objectMapper = new ObjectMapper();
     private final UserRepository userRepository;
+    private final SubscriptionIndex subscriptionIndex;
+    private final SessionRegistry sessionRegistry;
+    private final FrameEncoder frameEncoder;
+    private final SessionReaper sessionReaper;
 
-    // Mapa de sessionId -> userId (ahora acepta email o UUID)
-    private final Map<String, String> sessionUserMap = new ConcurrentHashMap<>();
+    // Perezoso: NotificationService depende (vía los contadores) de este handler
+    private final ObjectProvider<NotificationService> notificationService;
 
-    // Mapa de userId -> sessionId (para enviar mensajes a usuarios específicos)
-    private final Map<String, String> userSessionMap = new ConcurrentHashMap<>();
-
-    // Mapa de sessionId -> WebSocketSession (para enviar mensajes)
-    private final Map<String, WebSocketSession> activeSessions = new ConcurrentHashMap<>();
-
-    // Mapa de email -> UUID para tracking
-    private final Map<String, UUID> emailToUuidMap = new ConcurrentHashMap<>();
+    @Override
+    public List<String> getSubProtocols() {
+        return List.of(FrameEncoder.BINARY_PROTOCOL, FrameEncoder.JSON_PROTOCOL);
+    }
 
     @Override
     public void afterConnectionEstablished(WebSocketSession session) throws Exception {
-        log.info("WebSocket connection established: {}", session.getId());
+        log.info("WebSocket connection established: {} (protocol {}, extensions {})",
+                session.getId(), session.getAcceptedProtocol(), session.getExtensions());
 
-        // Guardar sesión activa
-        activeSessions.put(session.getId(), session);
+        // Guardar sesión activa (envuelta con su cola de salida)
+        sessionRegistry.open(session);
+        sessionReaper.track(session.getId());
 
         // Enviar mensaje de bienvenida
         Map<String, String> welcome = Map.of(
             "type", "CONNECTION_ESTABLISHED",
             "message", "Conectado al servidor de alertas"
         );
-        session.sendMessage(new TextMessage(objectMapper.writeValueAsString(welcome)));
+        reply(session, welcome);
     }
 
     @Override
     protected void handleTextMessage(WebSocketSession session, TextMessage message) throws Exception {
+        sessionReaper.touch(session.getId());
         String payload = message.getPayload();
         log.info("Received message from {}: {}", session.getId(), payload);
 
@@ -70,6 +82,12 @@ public class AlertWebSocketHandler extends TextWebSocketHandler {
                 case "REGISTER":
                     handleRegister(session, data);
                     break;
+                case "SUBSCRIBE":
+                    handleSubscribe(session, data);
+                    break;
+                case "ACK":
+                    handleAck(session, data);
+                    break;
                 case "UNREGISTER":
                     handleUnregister(session, data);
                     break;
@@ -85,20 +103,22 @@ public class AlertWebSocketHandler extends TextWebSocketHandler {
         }
     }
 
+    @Override
+    protected void handlePongMessage(WebSocketSession session, PongMessage message) {
+        sessionReaper.touch(session.getId());
+    }
+
     @Override
     public void afterConnectionClosed(WebSocketSession session, CloseStatus status) throws Exception {
         log.info("WebSocket connection closed: {} with status {}", session.getId(), status);
 
-        // Limpiar registros del usuario
-        String userId = sessionUserMap.remove(session.getId());
-        if (userId != null) {
-            userSessionMap.remove(userId);
-            emailToUuidMap.remove(userId);
-            log.info("User {} unregistered due to connection close", userId);
+        // Limpiar sesión activa y registro del usuario
+        sessionReaper.forget(session.getId());
+        SessionRegistry.Presence presence = sessionRegistry.close(session.getId());
+        if (presence != null) {
+            log.info("User {} unregistered due to connection close", presence.userKey());
         }
-
-        // Limpiar sesión activa
-        activeSessions.remove(session.getId());
+        subscriptionIndex.unsubscribe(session.getId());
     }
 
     @Override
@@ -117,16 +137,13 @@ public class AlertWebSocketHandler extends TextWebSocketHandler {
             return;
         }
 
-        // Guardar mapeos (ahora acepta cualquier string: email o UUID)
-        sessionUserMap.put(session.getId(), userId);
-        userSessionMap.put(userId, session.getId());
-
-        // Guardar mapeo email -> UUID
+        // Resolver el UUID (acepta cualquier string: email o UUID)
+        UUID uuid = null;
         try {
             var user = userRepository.findByEmail(userId);
             if (user != null) {
-                emailToUuidMap.put(userId, user.getId());
-                log.info("User {} (UUID: {}) registered with session {}", userId, user.getId(), session.getId());
+                uuid = user.getId();
+                log.info("User {} (UUID: {}) registered with session {}", userId, uuid, session.getId());
             } else {
                 log.warn("User with email {} not found in database", userId);
             }
@@ -134,31 +151,135 @@ public class AlertWebSocketHandler extends TextWebSocketHandler {
             log.error("Error looking up user: {}", e.getMessage());
         }
 
+        // Un usuario puede tener varias sesiones (una por dispositivo)
+        sessionRegistry.register(session.getId(), userId, uuid);
+
+        // Suscripción de la sesión (por defecto, la zona del usuario)
+        boolean subscribed = subscribe(session, userId, uuid, data.get("subscription"));
+
         // Confirmar registro
         Map<String, Object> response = Map.of(
             "type", "REGISTERED",
             "message", "Usuario registrado correctamente",
-            "userId", userId
+            "userId", userId,
+            "subscribed", subscribed
+        );
+        reply(session, response);
+    }
+
+    /**
+     * Cambiar la suscripción de una sesión ya registrada (por ejemplo, al mover el mapa)
+     */
+    private void handleSubscribe(WebSocketSession session, Map<String, Object> data) throws IOException {
+        SessionRegistry.Presence presence = sessionRegistry.getPresence(session.getId());
+        if (presence == null) {
+            sendError(session, "La sesión no está registrada");
+            return;
+        }
+
+        boolean subscribed = subscribe(session, presence.userKey(), presence.userId(), data.get("subscription"));
+        Map<String, Object> response = Map.of(
+            "type", "SUBSCRIBED",
+            "subscribed", subscribed
+        );
+        reply(session, response);
+    }
+
+    /**
+     * Registra la suscripción declarada por el cliente:
+     * { "zone": { "latitude", "longitude", "radiusM" } } o
+     * { "bbox": { "swLat", "swLon", "neLat", "neLon" } }, y opcionalmente "categories": [...].
+     * Si se envían ambos se usa el bbox; si no se envía ninguno, la zona del usuario.
+     */
+    @SuppressWarnings("unchecked")
+    private boolean subscribe(WebSocketSession session, String userId, UUID uuid, Object subscription) {
+        if (uuid == null) {
+            try {
+                uuid = UUID.fromString(userId);
+            } catch (IllegalArgumentException e) {
+                // Email desconocido: solo se puede suscribir con un área explícita
+            }
+        }
+
+        SubscriptionIndex.Area area = null;
+        Set<String> categories = Set.of();
+        if (subscription instanceof Map<?, ?> spec) {
+            Map<String, Object> bbox = (Map<String, Object>) spec.get("bbox");
+            Map<String, Object> zone = (Map<String, Object>) spec.get("zone");
+            if (bbox != null) {
+                area = SubscriptionIndex.Area.bbox(
+                        toDouble(bbox.get("swLat")), toDouble(bbox.get("swLon")),
+                        toDouble(bbox.get("neLat")), toDouble(bbox.get("neLon")));
+            } else if (zone != null) {
+                area = SubscriptionIndex.Area.circle(
+                        toDouble(zone.get("latitude")), toDouble(zone.get("longitude")),
+                        ((Number) zone.get("radiusM")).intValue());
+            }
+            if (spec.get("categories") instanceof List<?> list) {
+                categories = new HashSet<>((List<String>) list);
+            }
+        }
+
+        boolean subscribed = subscriptionIndex.subscribe(session.getId(), uuid, area, categories);
+        if (!subscribed) {
+            log.info("Session {} of user {} has no zone or area, it will not receive zone alerts",
+                    session.getId(), userId);
+        }
+        return subscribed;
+    }
+
+    private double toDouble(Object value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Coordenada requerida en la suscripción");
+        }
+        return ((Number) value).doubleValue();
+    }
+
+    /**
+     * Confirmar en bloque notificaciones como DELIVERED o READ:
+     * { "type": "ACK", "state": "READ", "notificationIds": [...] }
+     */
+    private void handleAck(WebSocketSession session, Map<String, Object> data) throws IOException {
+        SessionRegistry.Presence presence = sessionRegistry.getPresence(session.getId());
+        UUID uuid = presence != null ? presence.userId() : null;
+        if (uuid == null) {
+            sendError(session, "La sesión no está registrada");
+            return;
+        }
+
+        List<UUID> notificationIds = new ArrayList<>();
+        if (data.get("notificationIds") instanceof List<?> ids) {
+            for (Object id : ids) {
+                notificationIds.add(UUID.fromString(String.valueOf(id)));
+            }
+        }
+
+        NotificationAckResultDto result = notificationService.getObject()
+                .acknowledge(uuid, notificationIds, (String) data.get("state"));
+
+        Map<String, Object> response = Map.of(
+            "type", "ACKED",
+            "state", result.getState(),
+            "requested", result.getRequested(),
+            "updated", result.getUpdated()
         );
-        session.sendMessage(new TextMessage(objectMapper.writeValueAsString(response)));
+        reply(session, response);
     }
 
     /**
      * Desregistrar un usuario
      */
     private void handleUnregister(WebSocketSession session, Map<String, Object> data) throws IOException {
-        String userId = sessionUserMap.remove(session.getId());
-        if (userId != null) {
-            userSessionMap.remove(userId);
-            emailToUuidMap.remove(userId);
-
-            log.info("User {} unregistered", userId);
+        SessionRegistry.Presence presence = sessionRegistry.unregister(session.getId());
+        subscriptionIndex.unsubscribe(session.getId());
+        if (presence != null) {
+            log.info("User {} unregistered", presence.userKey());
 
             Map<String, String> response = Map.of(
                 "type", "UNREGISTERED",
                 "message", "Usuario desregistrado correctamente"
             );
-            session.sendMessage(new TextMessage(objectMapper.writeValueAsString(response)));
+            reply(session, response);
         }
     }
 
@@ -170,7 +291,7 @@ public class AlertWebSocketHandler extends TextWebSocketHandler {
             "type", "PONG",
             "timestamp", String.valueOf(System.currentTimeMillis())
         );
-        session.sendMessage(new TextMessage(objectMapper.writeValueAsString(pong)));
+        reply(session, pong);
     }
 
     /**
@@ -182,58 +303,119 @@ public class AlertWebSocketHandler extends TextWebSocketHandler {
                 "type", "ERROR",
                 "message", errorMessage
             );
-            session.sendMessage(new TextMessage(objectMapper.writeValueAsString(error)));
+            reply(session, error);
         } catch (IOException e) {
             log.error("Error sending error message: {}", e.getMessage(), e);
         }
     }
 
     /**
-     * Enviar notificación de alerta a un usuario específico
-     * Llamado por AlertNotificationService cuando se crea una alerta
+     * Responder a la propia sesión a través de su cola de salida, que admite
+     * envíos concurrentes con los del reparto de alertas
+     */
+    private void reply(WebSocketSession session, Object data) throws IOException {
+        sessionRegistry.sendNow(session.getId(), new TextMessage(objectMapper.writeValueAsString(data)));
+    }
+
+    /**
+     * Enviar notificación de alerta a un usuario específico (a todas sus sesiones)
      * @param userId Puede ser email o UUID
      */
     public void sendAlertToUser(String userId, Map<String, Object> alertData) {
-        String sessionId = userSessionMap.get(userId);
-        if (sessionId == null) {
+        Set<String> sessionIds = sessionRegistry.getSessions(userId);
+        if (sessionIds.isEmpty()) {
             log.debug("User {} is not connected", userId);
             return;
         }
 
-        WebSocketSession session = activeSessions.get(sessionId);
-        if (session == null || !session.isOpen()) {
-            log.warn("Session {} for user {} is not available or closed", sessionId, userId);
-            userSessionMap.remove(userId);
-            return;
+        int sent = sendFrame(sessionIds, frameEncoder.encode(alertData));
+        log.info("Alert sent to user {} via {} of {} sessions", userId, sent, sessionIds.size());
+    }
+
+    /**
+     * Enviar un mensaje a un usuario identificado por UUID (a todas sus sesiones)
+     */
+    public void sendToUser(UUID userId, Map<String, Object> data) {
+        Set<String> sessionIds = sessionRegistry.getSessions(userId);
+        if (!sessionIds.isEmpty()) {
+            sendFrame(sessionIds, frameEncoder.encode(data));
         }
+    }
 
-        try {
-            String message = objectMapper.writeValueAsString(alertData);
-            session.sendMessage(new TextMessage(message));
-            log.info("Alert sent to user {} via session {}", userId, sessionId);
-        } catch (IOException e) {
-            log.error("Error sending alert to user {}: {}", userId, e.getMessage(), e);
+    /**
+     * Enviar un frame ya codificado a todas las sesiones de un usuario
+     * @return número de sesiones a las que se encoló
+     */
+    public int sendFrameToUser(UUID userId, EventFrame frame) {
+        return sendFrame(sessionRegistry.getSessions(userId), frame);
+    }
+
+    /**
+     * Enviar un mensaje a todas las sesiones registradas, serializándolo una sola vez
+     */
+    public void broadcast(Map<String, Object> data) {
+        broadcastFrame(frameEncoder.encode(data));
+    }
+
+    public int broadcastFrame(EventFrame frame) {
+        return sendFrame(sessionRegistry.getRegisteredSessions(), frame);
+    }
+
+    /**
+     * Enviar un mismo mensaje a un conjunto de sesiones, serializándolo una sola vez
+     * @return número de sesiones a las que se encoló
+     */
+    public int sendToSessions(Collection<String> sessionIds, Map<String, Object> data) {
+        if (sessionIds.isEmpty()) {
+            return 0;
         }
+        return sendFrame(sessionIds, frameEncoder.encode(data));
+    }
+
+    /**
+     * Encola el mismo frame (misma instancia) en cada sesión. Solo se encola:
+     * ninguna sesión lenta retrasa a las demás.
+     * @return número de sesiones a las que se encoló
+     */
+    public int sendFrame(Collection<String> sessionIds, EventFrame frame) {
+        int sent = 0;
+        for (String sessionId : sessionIds) {
+            if (!sessionRegistry.isOpen(sessionId)) {
+                subscriptionIndex.unsubscribe(sessionId);
+                continue;
+            }
+            if (sessionRegistry.enqueue(sessionId, frame)) {
+                sent++;
+            }
+        }
+        return sent;
     }
 
     /**
      * Obtener cantidad de usuarios conectados
      */
     public int getConnectedUsersCount() {
-        return userSessionMap.size();
+        return sessionRegistry.getConnectedUsersCount();
     }
 
     /**
-     * Obtener todos los UUIDs de usuarios conectados
+     * Obtener todos los UUIDs de usuarios conectados (vista de solo lectura, sin copia)
      */
     public Set<UUID> getConnectedUserIds() {
-        return new HashSet<>(emailToUuidMap.values());
+        return sessionRegistry.getConnectedUserIds();
     }
 
     /**
      * Verificar si un usuario está conectado por UUID
      */
     public boolean isUserConnected(UUID userId) {
-        return emailToUuidMap.containsValue(userId);
+        return sessionRegistry.isConnected(userId);
+    }
+
+    /**
+     * Verificar si un usuario está conectado por el identificador (email) con que se registró
+     */
+    public boolean isUserConnected(String userId) {
+        return sessionRegistry.isConnected(userId);
     }
 }
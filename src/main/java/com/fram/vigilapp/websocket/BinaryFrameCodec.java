@@ -0,0 +1,125 @@
+package com.fram.vigilapp.websocket;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Codificación binaria de esquema fijo para los eventos de alerta (subprotocolo
+ * vigilapp.bin.v1). No repite nombres de campo, así que un NEW_ALERT ocupa varias
+ * veces menos que su JSON.
+ *
+ * Formato (big-endian):
+ * <pre>
+ * u8 versión (1), u8 tipo (1 NEW_ALERT, 2 ALERT_EXPIRED, 3 ALERT_DIGEST)
+ * NEW_ALERT:     alerta, i64 timestamp
+ * ALERT_EXPIRED: 16B alertId, str categoría, i32 lat, i32 lon, i64 timestamp
+ * ALERT_DIGEST:  varint n, n × alerta, i64 timestamp
+ * alerta:        16B alertId, str categoría, i32 lat, i32 lon, str título,
+ *                str descripción, str autor
+ * str:           varint (bytes + 1, 0 = null) y los bytes UTF-8
+ * lat/lon:       grados × 1e6 (Integer.MIN_VALUE = sin valor)
+ * </pre>
+ * Los demás mensajes (confirmaciones, contadores) siguen en JSON como frames de texto.
+ */
+public final class BinaryFrameCodec {
+
+    public static final int VERSION = 1;
+    public static final int NEW_ALERT = 1;
+    public static final int ALERT_EXPIRED = 2;
+    public static final int ALERT_DIGEST = 3;
+
+    private BinaryFrameCodec() {
+    }
+
+    /**
+     * @return los bytes del evento, o null si el tipo no tiene forma binaria
+     */
+    @SuppressWarnings("unchecked")
+    public static byte[] encode(String type, Map<String, Object> data) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(128);
+        out.write(VERSION);
+
+        switch (type) {
+            case "NEW_ALERT" -> {
+                out.write(NEW_ALERT);
+                writeAlert(out, data);
+            }
+            case "ALERT_EXPIRED" -> {
+                out.write(ALERT_EXPIRED);
+                writeUuid(out, data.get("alertId"));
+                writeString(out, data.get("alertCategory"));
+                writeCoordinate(out, data.get("latitude"));
+                writeCoordinate(out, data.get("longitude"));
+            }
+            case "ALERT_DIGEST" -> {
+                out.write(ALERT_DIGEST);
+                List<Map<String, Object>> alerts = (List<Map<String, Object>>) data.get("alerts");
+                writeVarint(out, alerts.size());
+                for (Map<String, Object> alert : alerts) {
+                    writeAlert(out, alert);
+                }
+            }
+            default -> {
+                return null;
+            }
+        }
+
+        Object timestamp = data.get("timestamp");
+        writeLong(out, timestamp instanceof Number number ? number.longValue() : System.currentTimeMillis());
+        return out.toByteArray();
+    }
+
+    private static void writeAlert(ByteArrayOutputStream out, Map<String, Object> alert) {
+        writeUuid(out, alert.get("alertId"));
+        writeString(out, alert.get("alertCategory"));
+        writeCoordinate(out, alert.get("latitude"));
+        writeCoordinate(out, alert.get("longitude"));
+        writeString(out, alert.get("alertTitle"));
+        writeString(out, alert.get("alertDescription"));
+        writeString(out, alert.get("createdByUserName"));
+    }
+
+    private static void writeUuid(ByteArrayOutputStream out, Object value) {
+        UUID uuid = value == null ? new UUID(0, 0)
+                : value instanceof UUID id ? id : UUID.fromString(value.toString());
+        writeLong(out, uuid.getMostSignificantBits());
+        writeLong(out, uuid.getLeastSignificantBits());
+    }
+
+    private static void writeCoordinate(ByteArrayOutputStream out, Object value) {
+        int micro = value instanceof Number number
+                ? (int) Math.round(number.doubleValue() * 1_000_000)
+                : Integer.MIN_VALUE;
+        out.write(micro >>> 24);
+        out.write(micro >>> 16);
+        out.write(micro >>> 8);
+        out.write(micro);
+    }
+
+    private static void writeString(ByteArrayOutputStream out, Object value) {
+        if (value == null) {
+            writeVarint(out, 0);
+            return;
+        }
+        byte[] bytes = value.toString().getBytes(StandardCharsets.UTF_8);
+        writeVarint(out, bytes.length + 1);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    private static void writeLong(ByteArrayOutputStream out, long value) {
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            out.write((int) (value >>> shift));
+        }
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+}
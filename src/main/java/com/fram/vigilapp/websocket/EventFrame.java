@@ -0,0 +1,54 @@
+package com.fram.vigilapp.websocket;
+
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+
+/**
+ * Un evento ya serializado, listo para enviarse.
+ *
+ * Se codifica una sola vez (FrameEncoder) y la misma instancia inmutable se encola en
+ * todas las sesiones destinatarias, sin copiar ni volver a serializar por destinatario.
+ * Los eventos de alerta no llevan datos propios de cada destinatario; si alguno los
+ * necesitara, deben ir en un mensaje aparte pequeño y no dentro del frame compartido.
+ * Junto al JSON guardan su forma binaria, para las sesiones que negociaron vigilapp.bin.v1.
+ */
+public final class EventFrame {
+
+    private final String type;
+    private final TextMessage text;
+    private final byte[] binary;
+
+    EventFrame(String type, byte[] json, byte[] binary) {
+        this.type = type;
+        this.text = new TextMessage(json);
+        this.binary = binary;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public TextMessage getText() {
+        return text;
+    }
+
+    public boolean hasBinary() {
+        return binary != null;
+    }
+
+    /**
+     * Mensaje para una sesión según el subprotocolo que aceptó
+     */
+    public WebSocketMessage<?> messageFor(String acceptedProtocol) {
+        if (binary != null && FrameEncoder.BINARY_PROTOCOL.equals(acceptedProtocol)) {
+            // El envío consume la posición del ByteBuffer: un envoltorio por envío, sin copiar los bytes
+            return new BinaryMessage(binary);
+        }
+        return text;
+    }
+
+    public int getLength() {
+        return text.getPayloadLength();
+    }
+}
@@ -0,0 +1,34 @@
+package com.fram.vigilapp.websocket;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Serializa los eventos WebSocket una sola vez a un EventFrame compartido: JSON para
+ * todas las sesiones y, en los eventos de alerta, también la forma binaria
+ * (BinaryFrameCodec) para las sesiones que negociaron BINARY_PROTOCOL
+ */
+@Component
+public class FrameEncoder {
+
+    public static final String BINARY_PROTOCOL = "vigilapp.bin.v1";
+    public static final String JSON_PROTOCOL = "vigilapp.json.v1";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    /**
+     * @param data mapa del evento; su clave "event" o "type" da el tipo del frame
+     */
+    public EventFrame encode(Map<String, Object> data) {
+        Object type = data.containsKey("event") ? data.get("event") : data.get("type");
+        try {
+            return new EventFrame(String.valueOf(type), objectMapper.writeValueAsBytes(data),
+                    BinaryFrameCodec.encode(String.valueOf(type), data));
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("No se pudo serializar el evento " + type, e);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.fram.vigilapp.websocket;
+
+import com.fram.vigilapp.util.HierarchicalTimingWheel;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.PingMessage;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Latido del servidor y expulsión de sesiones inactivas.
+ *
+ * Cada sesión tiene su próxima revisión en una rueda de temporización (programar y
+ * cancelar son O(1) y cada tick solo toca las sesiones que vencen). Al vencer: si el
+ * cliente habló hace menos de ping-interval-ms se reprograma; si lleva más de
+ * idle-timeout-ms sin responder se expulsa; si no, se le envía un ping. Cualquier
+ * mensaje del cliente o su pong cuentan como actividad, así que las conexiones medio
+ * abiertas desaparecen de la presencia y de las suscripciones en lugar de quedarse
+ * hasta que falle un envío.
+ */
+@Slf4j
+@Component
+public class SessionReaper {
+
+    private static final long TICK_MS = 1000;
+    private static final int WHEEL_SIZE = 64;
+    private static final int WHEEL_LEVELS = 3;
+
+    private final SessionRegistry sessionRegistry;
+    private final SubscriptionIndex subscriptionIndex;
+    private final boolean enabled;
+    private final long pingIntervalMs;
+    private final long idleTimeoutMs;
+
+    private final HierarchicalTimingWheel<String> wheel =
+            new HierarchicalTimingWheel<>(TICK_MS, WHEEL_SIZE, WHEEL_LEVELS, System.currentTimeMillis());
+
+    // sessionId -> última actividad del cliente
+    private final Map<String, Long> lastSeenAt = new ConcurrentHashMap<>();
+
+    public SessionReaper(SessionRegistry sessionRegistry,
+                         SubscriptionIndex subscriptionIndex,
+                         @Value("${websocket.heartbeat.enabled:true}") boolean enabled,
+                         @Value("${websocket.heartbeat.ping-interval-ms:25000}") long pingIntervalMs,
+                         @Value("${websocket.heartbeat.idle-timeout-ms:75000}") long idleTimeoutMs) {
+        this.sessionRegistry = sessionRegistry;
+        this.subscriptionIndex = subscriptionIndex;
+        this.enabled = enabled;
+        this.pingIntervalMs = pingIntervalMs;
+        this.idleTimeoutMs = idleTimeoutMs;
+    }
+
+    public void track(String sessionId) {
+        if (!enabled) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        lastSeenAt.put(sessionId, now);
+        wheel.schedule(sessionId, now + pingIntervalMs);
+    }
+
+    public void touch(String sessionId) {
+        lastSeenAt.computeIfPresent(sessionId, (id, seen) -> System.currentTimeMillis());
+    }
+
+    public void forget(String sessionId) {
+        if (lastSeenAt.remove(sessionId) != null) {
+            wheel.cancel(sessionId);
+        }
+    }
+
+    @Scheduled(fixedDelay = TICK_MS)
+    public void checkDueSessions() {
+        if (!enabled) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        int pinged = 0;
+        int reaped = 0;
+        for (String sessionId : wheel.advance(now)) {
+            Long seen = lastSeenAt.get(sessionId);
+            if (seen == null) {
+                continue;
+            }
+
+            if (!sessionRegistry.isOpen(sessionId) || now - seen > idleTimeoutMs) {
+                forget(sessionId);
+                subscriptionIndex.unsubscribe(sessionId);
+                sessionRegistry.evict(sessionId, CloseStatus.SESSION_NOT_RELIABLE);
+                reaped++;
+                continue;
+            }
+
+            if (now - seen < pingIntervalMs) {
+                // Activa hace poco: no hace falta ping todavía
+                wheel.schedule(sessionId, seen + pingIntervalMs);
+                continue;
+            }
+
+            sessionRegistry.enqueue(sessionId, new PingMessage());
+            wheel.schedule(sessionId, now + pingIntervalMs);
+            pinged++;
+        }
+
+        if (reaped > 0) {
+            log.info("Reaped {} idle WebSocket sessions ({} pinged, {} tracked)", reaped, pinged, lastSeenAt.size());
+        }
+    }
+}
@@ -0,0 +1,368 @@
+package com.fram.vigilapp.websocket;
+
+import jakarta.websocket.Session;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.NativeWebSocketSession;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.socket.handler.SessionLimitExceededException;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sesiones WebSocket abiertas y presencia de usuarios.
+ *
+ * Un usuario puede tener varias sesiones (una por dispositivo) y todas reciben sus
+ * mensajes. Cada sesión se envuelve en un ConcurrentWebSocketSessionDecorator: los
+ * envíos concurrentes se encolan en lugar de bloquear, y si la cola supera
+ * buffer-size-limit o un envío tarda más de send-time-limit-ms la sesión se cierra.
+ * Los envíos del reparto (enqueue) van a una cola propia de cada sesión que vacía una
+ * sola tarea de webSocketSendExecutor a la vez: los mensajes salen en el orden en que
+ * se encolaron y una sesión colgada ocupa como mucho un hilo, que se libera al vencer
+ * send-time-limit-ms (también como límite de la escritura bloqueante del contenedor).
+ * Una sesión con más de max-queued-messages pendientes se cierra por lenta.
+ * Los índices por sesión, por identificador (email) y por UUID hacen que todas las
+ * consultas de presencia sean O(1); SessionReaper expulsa las conexiones muertas.
+ */
+@Slf4j
+@Component
+public class SessionRegistry {
+
+    private final TaskExecutor sendExecutor;
+    private final int sendTimeLimitMs;
+    private final int bufferSizeLimit;
+    private final int maxQueuedMessages;
+
+    // Mensajes que envía una tarea antes de ceder el hilo a otras sesiones
+    private static final int DRAIN_BATCH = 64;
+
+    // Propiedad de Tomcat con el límite (ms) de una escritura bloqueante
+    private static final String BLOCKING_SEND_TIMEOUT = "org.apache.tomcat.websocket.BLOCKING_SEND_TIMEOUT";
+
+    // sessionId -> sesión envuelta con su cola de salida
+    private final Map<String, WebSocketSession> sessions = new ConcurrentHashMap<>();
+
+    // sessionId -> mensajes pendientes de enqueue
+    private final Map<String, SendQueue> sendQueues = new ConcurrentHashMap<>();
+
+    // sessionId -> usuario registrado en la sesión
+    private final Map<String, Presence> presences = new ConcurrentHashMap<>();
+
+    // identificador registrado (email o UUID) -> sesiones
+    private final Map<String, Set<String>> sessionsByKey = new ConcurrentHashMap<>();
+
+    // UUID -> sesiones
+    private final Map<UUID, Set<String>> sessionsByUserId = new ConcurrentHashMap<>();
+
+    /**
+     * Usuario de una sesión: el identificador con que se registró y su UUID si se conoce
+     */
+    public record Presence(String userKey, UUID userId) {
+    }
+
+    /**
+     * Cola de salida de una sesión; draining indica que ya hay una tarea vaciándola
+     */
+    private static class SendQueue {
+        final ConcurrentLinkedQueue<WebSocketMessage<?>> messages = new ConcurrentLinkedQueue<>();
+        final AtomicInteger size = new AtomicInteger();
+        final AtomicBoolean draining = new AtomicBoolean();
+    }
+
+    public SessionRegistry(@Qualifier("webSocketSendExecutor") TaskExecutor sendExecutor,
+                           @Value("${websocket.session.send-time-limit-ms:10000}") int sendTimeLimitMs,
+                           @Value("${websocket.session.buffer-size-limit:524288}") int bufferSizeLimit,
+                           @Value("${websocket.session.max-queued-messages:1000}") int maxQueuedMessages) {
+        this.sendExecutor = sendExecutor;
+        this.sendTimeLimitMs = sendTimeLimitMs;
+        this.bufferSizeLimit = bufferSizeLimit;
+        this.maxQueuedMessages = maxQueuedMessages;
+    }
+
+    /**
+     * Registra una sesión recién abierta y devuelve la sesión envuelta
+     */
+    public WebSocketSession open(WebSocketSession session) {
+        limitBlockingSend(session);
+        WebSocketSession decorated = new ConcurrentWebSocketSessionDecorator(session, sendTimeLimitMs,
+                bufferSizeLimit, ConcurrentWebSocketSessionDecorator.OverflowStrategy.TERMINATE);
+        sessions.put(session.getId(), decorated);
+        sendQueues.put(session.getId(), new SendQueue());
+        return decorated;
+    }
+
+    /**
+     * Olvida una sesión cerrada
+     * @return el usuario que tenía registrado, o null
+     */
+    public Presence close(String sessionId) {
+        sessions.remove(sessionId);
+        SendQueue queue = sendQueues.remove(sessionId);
+        if (queue != null) {
+            queue.messages.clear();
+        }
+        return unregister(sessionId);
+    }
+
+    /**
+     * Cierra y olvida una sesión sin esperar a afterConnectionClosed, que en una
+     * conexión medio abierta puede tardar. El cierre se hace en el executor de envío
+     * porque puede bloquearse escribiendo el frame de cierre.
+     * @return el usuario que tenía registrado, o null
+     */
+    public Presence evict(String sessionId, CloseStatus status) {
+        WebSocketSession session = sessions.get(sessionId);
+        Presence presence = close(sessionId);
+        if (session != null) {
+            try {
+                sendExecutor.execute(() -> closeQuietly(session, status));
+            } catch (RejectedExecutionException e) {
+                log.warn("WebSocket send queue full, session {} forgotten without closing", sessionId);
+            }
+        }
+        return presence;
+    }
+
+    /**
+     * Asocia la sesión a un usuario (reemplaza el registro anterior de la sesión)
+     */
+    public void register(String sessionId, String userKey, UUID userId) {
+        unregister(sessionId);
+        presences.put(sessionId, new Presence(userKey, userId));
+        addTo(sessionsByKey, userKey, sessionId);
+        if (userId != null) {
+            addTo(sessionsByUserId, userId, sessionId);
+        }
+    }
+
+    /**
+     * Quita el usuario de la sesión; la sesión sigue abierta
+     * @return el usuario que tenía registrado, o null
+     */
+    public Presence unregister(String sessionId) {
+        Presence presence = presences.remove(sessionId);
+        if (presence != null) {
+            removeFrom(sessionsByKey, presence.userKey(), sessionId);
+            if (presence.userId() != null) {
+                removeFrom(sessionsByUserId, presence.userId(), sessionId);
+            }
+        }
+        return presence;
+    }
+
+    public Presence getPresence(String sessionId) {
+        return presences.get(sessionId);
+    }
+
+    public Set<String> getSessions(String userKey) {
+        return sessionsByKey.getOrDefault(userKey, Set.of());
+    }
+
+    public Set<String> getSessions(UUID userId) {
+        return sessionsByUserId.getOrDefault(userId, Set.of());
+    }
+
+    /**
+     * Sesiones con un usuario registrado
+     */
+    public Set<String> getRegisteredSessions() {
+        return presences.keySet();
+    }
+
+    public boolean isOpen(String sessionId) {
+        WebSocketSession session = sessions.get(sessionId);
+        return session != null && session.isOpen();
+    }
+
+    public boolean isConnected(UUID userId) {
+        return sessionsByUserId.containsKey(userId);
+    }
+
+    public boolean isConnected(String userKey) {
+        return sessionsByKey.containsKey(userKey);
+    }
+
+    /**
+     * UUID de un usuario conectado a partir del identificador (email) con que se registró
+     */
+    public UUID getUserId(String userKey) {
+        for (String sessionId : getSessions(userKey)) {
+            Presence presence = presences.get(sessionId);
+            if (presence != null) {
+                return presence.userId();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Vista de solo lectura de los usuarios conectados (sin copiar)
+     */
+    public Set<UUID> getConnectedUserIds() {
+        return Collections.unmodifiableSet(sessionsByUserId.keySet());
+    }
+
+    public int getConnectedUsersCount() {
+        return sessionsByKey.size();
+    }
+
+    /**
+     * Envía en el hilo actual; para las respuestas a los mensajes del propio cliente
+     */
+    public void sendNow(String sessionId, WebSocketMessage<?> message) {
+        WebSocketSession session = sessions.get(sessionId);
+        if (session != null) {
+            deliver(session, message);
+        }
+    }
+
+    /**
+     * Encola el envío sin esperar a que se escriba en el socket. Los mensajes de una
+     * sesión se escriben en el orden en que se encolaron.
+     * @return false si la sesión no está abierta o tiene demasiados mensajes pendientes
+     */
+    public boolean enqueue(String sessionId, WebSocketMessage<?> message) {
+        WebSocketSession session = sessions.get(sessionId);
+        SendQueue queue = sendQueues.get(sessionId);
+        if (session == null || queue == null || !session.isOpen()) {
+            return false;
+        }
+        if (queue.size.incrementAndGet() > maxQueuedMessages) {
+            queue.size.decrementAndGet();
+            // Cliente que no consume: se cierra igual que cuando se llena el buffer del decorador
+            log.warn("Closing slow WebSocket session {}: more than {} queued messages", sessionId, maxQueuedMessages);
+            evict(sessionId, CloseStatus.SESSION_NOT_RELIABLE);
+            return false;
+        }
+        queue.messages.add(message);
+        scheduleDrain(session, queue);
+        return true;
+    }
+
+    /**
+     * Encola un frame compartido en la forma (JSON o binaria) que negoció la sesión
+     * @return false si la sesión no está abierta o tiene demasiados mensajes pendientes
+     */
+    public boolean enqueue(String sessionId, EventFrame frame) {
+        WebSocketSession session = sessions.get(sessionId);
+        if (session == null || !session.isOpen()) {
+            return false;
+        }
+        return enqueue(sessionId, frame.messageFor(session.getAcceptedProtocol()));
+    }
+
+    /**
+     * Lanza la tarea que vacía la cola si no hay ya una en marcha
+     */
+    private void scheduleDrain(WebSocketSession session, SendQueue queue) {
+        if (!queue.draining.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            sendExecutor.execute(() -> drain(session, queue));
+        } catch (RejectedExecutionException e) {
+            // Los mensajes siguen en la cola; el siguiente enqueue vuelve a intentarlo
+            queue.draining.set(false);
+            log.warn("WebSocket send executor full, {} messages to session {} wait for the next send",
+                    queue.size.get(), session.getId());
+        }
+    }
+
+    /**
+     * Escribe en orden hasta DRAIN_BATCH mensajes y, si quedan, cede el hilo volviendo a
+     * programarse. Si un envío falla el socket ya no sirve: se cierra y se descarta el resto.
+     */
+    private void drain(WebSocketSession session, SendQueue queue) {
+        try {
+            WebSocketMessage<?> message;
+            for (int sent = 0; sent < DRAIN_BATCH && (message = queue.messages.poll()) != null; sent++) {
+                queue.size.decrementAndGet();
+                if (!deliver(session, message)) {
+                    queue.messages.clear();
+                    queue.size.set(0);
+                    if (session.isOpen()) {
+                        closeQuietly(session, CloseStatus.SESSION_NOT_RELIABLE);
+                    }
+                    return;
+                }
+            }
+        } finally {
+            queue.draining.set(false);
+        }
+        // Lo encolado mientras se vaciaba, o lo que no cupo en este lote
+        if (!queue.messages.isEmpty() && session.isOpen()) {
+            scheduleDrain(session, queue);
+        }
+    }
+
+    /**
+     * @return false si el envío falló
+     */
+    private boolean deliver(WebSocketSession session, WebSocketMessage<?> message) {
+        try {
+            session.sendMessage(message);
+            return true;
+        } catch (SessionLimitExceededException e) {
+            // Cliente lento o colgado: se cierra en vez de esperarlo
+            log.warn("Closing slow WebSocket session {}: {}", session.getId(), e.getMessage());
+            closeQuietly(session, e.getStatus());
+            return false;
+        } catch (IOException | IllegalStateException e) {
+            log.debug("Error sending to session {}: {}", session.getId(), e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Una escritura bloqueada en un socket colgado no debe retener el hilo de envío más
+     * que send-time-limit-ms; sin esto Tomcat espera su propio límite (20 s por defecto)
+     */
+    private void limitBlockingSend(WebSocketSession session) {
+        if (session instanceof NativeWebSocketSession nativeSession) {
+            Session standard = nativeSession.getNativeSession(Session.class);
+            if (standard != null) {
+                standard.getUserProperties().put(BLOCKING_SEND_TIMEOUT, (long) sendTimeLimitMs);
+            }
+        }
+    }
+
+    private void closeQuietly(WebSocketSession session, CloseStatus status) {
+        try {
+            session.close(status);
+        } catch (IOException e) {
+            log.debug("Error closing session {}: {}", session.getId(), e.getMessage());
+        }
+    }
+
+    private static <K> void addTo(Map<K, Set<String>> index, K key, String sessionId) {
+        index.compute(key, (k, ids) -> {
+            if (ids == null) {
+                ids = ConcurrentHashMap.newKeySet();
+            }
+            ids.add(sessionId);
+            return ids;
+        });
+    }
+
+    private static <K> void removeFrom(Map<K, Set<String>> index, K key, String sessionId) {
+        index.computeIfPresent(key, (k, ids) -> {
+            ids.remove(sessionId);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+}
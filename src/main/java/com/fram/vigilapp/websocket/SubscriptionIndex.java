@@ -0,0 +1,212 @@
+package com.fram.vigilapp.websocket;
+
+import com.fram.vigilapp.cache.UserZoneIndex;
+import com.fram.vigilapp.dto.AlertDto;
+import com.fram.vigilapp.event.UserZoneChangedEvent;
+import com.fram.vigilapp.util.GeoUtil;
+import lombok.RequiredArgsConstructor;
+import org.locationtech.jts.geom.Envelope;
+import org.locationtech.jts.index.quadtree.Quadtree;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Suscripciones de las sesiones WebSocket indexadas espacialmente.
+ *
+ * Cada sesión declara al registrarse un área (círculo de su zona o bbox del mapa)
+ * y opcionalmente un filtro de categorías. Si no declara área se usa la zona del
+ * usuario en UserZoneIndex y se actualiza cuando el usuario cambia su zona.
+ * Entregar una alerta es una sola consulta al quadtree, sin acceso a la base de datos.
+ */
+@Component
+@RequiredArgsConstructor
+public class SubscriptionIndex {
+
+    private final UserZoneIndex userZoneIndex;
+    private final GeoUtil geoUtil;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Quadtree tree = new Quadtree();
+
+    // sessionId -> suscripción indexada
+    private final Map<String, Subscription> subscriptions = new HashMap<>();
+
+    /**
+     * Área de una suscripción: un círculo (radiusM > 0) o un bounding box
+     */
+    public record Area(double latitude, double longitude, int radiusM,
+                       double minLat, double minLon, double maxLat, double maxLon) {
+
+        public static Area circle(double latitude, double longitude, int radiusM) {
+            return new Area(latitude, longitude, radiusM, 0, 0, 0, 0);
+        }
+
+        public static Area bbox(double swLat, double swLon, double neLat, double neLon) {
+            return new Area(0, 0, 0, swLat, swLon, neLat, neLon);
+        }
+
+        boolean isCircle() {
+            return radiusM > 0;
+        }
+    }
+
+    public record Subscription(String sessionId, UUID userId, Area area, Set<String> categories,
+                               boolean zoneDerived, Envelope envelope) {
+    }
+
+    /**
+     * Registra o reemplaza la suscripción de una sesión.
+     * @param area null para usar la zona del usuario
+     * @param categories vacío para todas las categorías
+     * @return false si no hay área (ni declarada ni zona del usuario)
+     */
+    public boolean subscribe(String sessionId, UUID userId, Area area, Set<String> categories) {
+        boolean zoneDerived = area == null;
+        if (zoneDerived) {
+            area = zoneArea(userId);
+        }
+        if (area == null) {
+            unsubscribe(sessionId);
+            return false;
+        }
+
+        put(new Subscription(sessionId, userId, area, Set.copyOf(categories), zoneDerived, envelopeOf(area)));
+        return true;
+    }
+
+    public void unsubscribe(String sessionId) {
+        lock.writeLock().lock();
+        try {
+            Subscription previous = subscriptions.remove(sessionId);
+            if (previous != null) {
+                tree.remove(previous.envelope(), previous);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public Optional<Subscription> get(String sessionId) {
+        lock.readLock().lock();
+        try {
+            return Optional.ofNullable(subscriptions.get(sessionId));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void put(Subscription subscription) {
+        lock.writeLock().lock();
+        try {
+            Subscription previous = subscriptions.put(subscription.sessionId(), subscription);
+            if (previous != null) {
+                tree.remove(previous.envelope(), previous);
+            }
+            tree.insert(subscription.envelope(), subscription);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Sesiones cuya suscripción coincide con la alerta (sin incluir las del creador)
+     */
+    @SuppressWarnings("unchecked")
+    public List<String> match(AlertDto alert) {
+        double latitude = alert.getLatitude();
+        double longitude = alert.getLongitude();
+
+        List<Subscription> candidates;
+        lock.readLock().lock();
+        try {
+            candidates = tree.query(new Envelope(longitude, longitude, latitude, latitude));
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<String> sessionIds = new ArrayList<>();
+        for (Subscription subscription : candidates) {
+            if (alert.getCreatedByUserId() != null && alert.getCreatedByUserId().equals(subscription.userId())) {
+                continue;
+            }
+            if (!subscription.categories().isEmpty() && !subscription.categories().contains(alert.getCategory())) {
+                continue;
+            }
+            if (contains(subscription, latitude, longitude)) {
+                sessionIds.add(subscription.sessionId());
+            }
+        }
+        return sessionIds;
+    }
+
+    /**
+     * Las sesiones que siguen la zona del usuario se mueven con ella
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserZoneChanged(UserZoneChangedEvent event) {
+        List<Subscription> affected = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            for (Subscription subscription : subscriptions.values()) {
+                if (subscription.zoneDerived() && event.getUserId().equals(subscription.userId())) {
+                    affected.add(subscription);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        for (Subscription subscription : affected) {
+            if (event.isDeleted()) {
+                unsubscribe(subscription.sessionId());
+            } else {
+                Area area = Area.circle(event.getCenterLatitude(), event.getCenterLongitude(), event.getRadiusM());
+                put(new Subscription(subscription.sessionId(), subscription.userId(), area,
+                        subscription.categories(), true, envelopeOf(area)));
+            }
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return subscriptions.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Area zoneArea(UUID userId) {
+        if (userId == null) {
+            return null;
+        }
+        return userZoneIndex.get(userId)
+                .map(zone -> Area.circle(zone.latitude(), zone.longitude(), zone.radiusM()))
+                .orElse(null);
+    }
+
+    private boolean contains(Subscription subscription, double latitude, double longitude) {
+        Area area = subscription.area();
+        if (area.isCircle()) {
+            return geoUtil.haversineMeters(area.latitude(), area.longitude(), latitude, longitude) <= area.radiusM();
+        }
+        return subscription.envelope().contains(longitude, latitude);
+    }
+
+    private Envelope envelopeOf(Area area) {
+        if (area.isCircle()) {
+            return geoUtil.envelopeAround(area.latitude(), area.longitude(), area.radiusM());
+        }
+        return new Envelope(area.minLon(), area.maxLon(), area.minLat(), area.maxLat());
+    }
+}
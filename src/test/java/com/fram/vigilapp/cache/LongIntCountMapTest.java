@@ -0,0 +1,134 @@
+package com.fram.vigilapp.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LongIntCountMapTest {
+
+    // Con expectedSize pequeño la tabla empieza con 16 posiciones
+    private static final int CAPACITY = 16;
+
+    /**
+     * Misma función de dispersión que LongIntCountMap.slot para una tabla de CAPACITY posiciones
+     */
+    private static int home(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & (CAPACITY - 1);
+    }
+
+    /**
+     * Las primeras count claves positivas cuya posición inicial es slot
+     */
+    private static List<Long> keysWithHome(int slot, int count) {
+        List<Long> keys = new ArrayList<>();
+        for (long key = 1; keys.size() < count; key++) {
+            if (home(key) == slot) {
+                keys.add(key);
+            }
+        }
+        return keys;
+    }
+
+    private static Map<Long, Integer> contents(LongIntCountMap map) {
+        Map<Long, Integer> contents = new HashMap<>();
+        map.forEach((key, count) -> contents.put(key, count));
+        return contents;
+    }
+
+    @Test
+    void deletionChainWrappingTheArrayEndKeepsEveryKeyReachable() {
+        LongIntCountMap map = new LongIntCountMap(4);
+
+        // Tres claves con casa en 14 ocupan 14, 15 y 0; la de casa 1 queda en 1 y la
+        // de casa 0, insertada después, en 2: la cadena cruza el final del array
+        List<Long> at14 = keysWithHome(14, 3);
+        long at1 = keysWithHome(1, 1).get(0);
+        long at0 = keysWithHome(0, 1).get(0);
+        Map<Long, Integer> expected = new HashMap<>();
+        for (long key : at14) {
+            map.add(key, 3);
+            expected.put(key, 3);
+        }
+        map.add(at1, 9);
+        expected.put(at1, 9);
+        map.add(at0, 11);
+        expected.put(at0, 11);
+
+        // Borrar la cabeza desplaza las de casa 14 a través del límite (15 -> 14, 0 -> 15);
+        // la de casa 1 no puede moverse antes de su casa y la de casa 0 salta por encima de ella
+        map.add(at14.get(0), -3);
+        expected.remove(at14.get(0));
+
+        assertEquals(expected.size(), map.size());
+        expected.forEach((key, count) -> assertEquals(count, map.get(key), "clave " + key));
+        assertEquals(expected, contents(map));
+
+        // La cadena sigue siendo coherente para nuevos borrados e inserciones
+        map.add(at1, -9);
+        expected.remove(at1);
+        map.add(at14.get(2), 5);
+        expected.put(at14.get(2), 8);
+        assertEquals(expected, contents(map));
+        expected.forEach((key, count) -> assertEquals(count, map.get(key), "clave " + key));
+    }
+
+    @Test
+    void deletingTheLastKeyOfAWrappedChainLeavesNoGap() {
+        LongIntCountMap map = new LongIntCountMap(4);
+        List<Long> at15 = keysWithHome(15, 3);
+        for (long key : at15) {
+            map.add(key, 1);
+        }
+
+        // La última de la cadena está en la posición 1 tras dar la vuelta
+        map.add(at15.get(2), -1);
+        map.add(at15.get(0), -1);
+
+        assertEquals(1, map.size());
+        assertEquals(1, map.get(at15.get(1)));
+        assertEquals(0, map.get(at15.get(0)));
+        assertEquals(0, map.get(at15.get(2)));
+    }
+
+    @Test
+    void countersNeverGoNegativeAndZeroRemovesTheKey() {
+        LongIntCountMap map = new LongIntCountMap(4);
+
+        assertEquals(0, map.add(7, -3));
+        assertEquals(0, map.size());
+
+        assertEquals(2, map.add(7, 2));
+        assertEquals(0, map.add(7, -5));
+        assertEquals(0, map.get(7));
+        assertEquals(0, map.size());
+    }
+
+    @Test
+    void matchesHashMapUnderRandomAddsRemovesAndRehashes() {
+        Random random = new Random(42);
+        LongIntCountMap map = new LongIntCountMap(4);
+        Map<Long, Integer> expected = new HashMap<>();
+
+        for (int i = 0; i < 20_000; i++) {
+            long key = random.nextInt(64) - 8;
+            int delta = random.nextInt(7) - 3;
+            int value = Math.max(0, expected.getOrDefault(key, 0) + delta);
+            if (value == 0) {
+                expected.remove(key);
+            } else {
+                expected.put(key, value);
+            }
+
+            assertEquals(value, map.add(key, delta));
+            assertEquals(expected.size(), map.size());
+        }
+        assertEquals(expected, contents(map));
+    }
+}
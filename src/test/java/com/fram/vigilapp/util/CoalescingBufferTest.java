@@ -0,0 +1,97 @@
+package com.fram.vigilapp.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CoalescingBufferTest {
+
+    private static final long WINDOW_MS = 100;
+
+    @Test
+    void firstOfferIsDeliveredAndTheRestWaitForTheWindow() {
+        CoalescingBuffer<String, Integer> buffer = new CoalescingBuffer<>(WINDOW_MS);
+
+        assertTrue(buffer.offer("u", 1, 0));
+        assertFalse(buffer.offer("u", 2, 10));
+        assertFalse(buffer.offer("u", 2, 20));
+        assertFalse(buffer.offer("u", 3, 30));
+
+        assertTrue(buffer.drainExpired(99).isEmpty());
+        assertEquals(Map.of("u", List.of(2, 3)), buffer.drainExpired(100));
+    }
+
+    @Test
+    void drainingPendingItemsReopensTheWindow() {
+        CoalescingBuffer<String, Integer> buffer = new CoalescingBuffer<>(WINDOW_MS);
+        assertTrue(buffer.offer("u", 1, 0));
+        assertFalse(buffer.offer("u", 2, 50));
+
+        // Se entregan los pendientes y se abre otra ventana hasta 100 + WINDOW_MS
+        assertEquals(Map.of("u", List.of(2)), buffer.drainExpired(100));
+        assertEquals(1, buffer.size());
+
+        assertFalse(buffer.offer("u", 3, 150));
+        assertTrue(buffer.drainExpired(199).isEmpty());
+        assertEquals(Map.of("u", List.of(3)), buffer.drainExpired(200));
+
+        // Una ventana que vence sin pendientes se cierra y la siguiente oferta sale ya
+        assertTrue(buffer.drainExpired(300).isEmpty());
+        assertEquals(0, buffer.size());
+        assertTrue(buffer.offer("u", 4, 310));
+    }
+
+    @Test
+    void expiredWindowWithoutPendingItemsReopensOnOffer() {
+        CoalescingBuffer<String, Integer> buffer = new CoalescingBuffer<>(WINDOW_MS);
+        assertTrue(buffer.offer("u", 1, 0));
+
+        // Sin drainExpired de por medio: la ventana vencida y vacía no retiene la oferta
+        assertTrue(buffer.offer("u", 2, 100));
+        assertFalse(buffer.offer("u", 3, 150));
+        assertEquals(Map.of("u", List.of(3)), buffer.drainExpired(200));
+    }
+
+    @Test
+    void expiredWindowWithPendingItemsKeepsAccumulatingUntilDrained() {
+        CoalescingBuffer<String, Integer> buffer = new CoalescingBuffer<>(WINDOW_MS);
+        assertTrue(buffer.offer("u", 1, 0));
+        assertFalse(buffer.offer("u", 2, 50));
+
+        // Vencida pero con pendientes: entregar ya adelantaría esta oferta a la 2
+        assertFalse(buffer.offer("u", 3, 120));
+        assertEquals(Map.of("u", List.of(2, 3)), buffer.drainExpired(130));
+    }
+
+    @Test
+    void keysHaveIndependentWindows() {
+        CoalescingBuffer<String, Integer> buffer = new CoalescingBuffer<>(WINDOW_MS);
+        assertTrue(buffer.offer("a", 1, 0));
+        assertTrue(buffer.offer("b", 1, 60));
+        assertFalse(buffer.offer("a", 2, 70));
+        assertFalse(buffer.offer("b", 2, 70));
+
+        assertEquals(Map.of("a", List.of(2)), buffer.drainExpired(100));
+        assertEquals(Map.of("b", List.of(2)), buffer.drainExpired(160));
+
+        buffer.remove("a");
+        assertTrue(buffer.offer("a", 3, 170));
+    }
+
+    @Test
+    void drainAllReturnsPendingAndClosesEveryWindow() {
+        CoalescingBuffer<String, Integer> buffer = new CoalescingBuffer<>(WINDOW_MS);
+        buffer.offer("a", 1, 0);
+        buffer.offer("a", 2, 10);
+        buffer.offer("b", 1, 10);
+
+        assertEquals(Map.of("a", List.of(2)), buffer.drainAll());
+        assertEquals(0, buffer.size());
+        assertTrue(buffer.offer("a", 3, 20));
+    }
+}
@@ -0,0 +1,124 @@
+package com.fram.vigilapp.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HierarchicalTimingWheelTest {
+
+    /**
+     * Avanza tick a tick (tickMs = 1) y anota en qué tick vence cada elemento
+     */
+    private static Map<String, Long> advanceTickByTick(HierarchicalTimingWheel<String> wheel, long from, long to) {
+        Map<String, Long> firedAt = new HashMap<>();
+        for (long tick = from + 1; tick <= to; tick++) {
+            for (String item : wheel.advance(tick)) {
+                assertNull(firedAt.put(item, tick), "vencido dos veces: " + item);
+            }
+        }
+        return firedAt;
+    }
+
+    @Test
+    void firesExactlyOnDeadlineAcrossLevelBoundaries() {
+        // 4 ranuras y 3 niveles: los niveles cubren 4, 16 y 64 ticks. Empezar en 61 hace
+        // que las ranuras de los tres niveles den la vuelta al final del array
+        long start = 61;
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(1, 4, 3, start);
+        long[] deadlines = {62, 63, 64, 65, 67, 68, 79, 80, 81, 95, 96, 97, 124, 127, 128, 129, 144};
+        for (long deadline : deadlines) {
+            wheel.schedule("d" + deadline, deadline);
+        }
+
+        Map<String, Long> firedAt = advanceTickByTick(wheel, start, 200);
+
+        assertEquals(deadlines.length, firedAt.size());
+        for (long deadline : deadlines) {
+            assertEquals(deadline, firedAt.get("d" + deadline), "d" + deadline);
+        }
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void advancingSeveralTicksAtOnceReturnsEveryDueItem() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(1000, 4, 2, 0);
+        wheel.schedule("a", 3_500);
+        wheel.schedule("b", 15_000);
+        wheel.schedule("c", 17_000);
+
+        // Un plazo de 3.5 s vence en el tick 4 (se redondea hacia arriba)
+        assertTrue(wheel.advance(3_999).isEmpty());
+        assertEquals(List.of("a"), wheel.advance(4_000));
+        assertEquals(List.of("b"), wheel.advance(16_999));
+        assertEquals(List.of("c"), wheel.advance(60_000));
+    }
+
+    @Test
+    void pastDeadlineFiresOnNextTick() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(1, 4, 2, 10);
+        wheel.schedule("late", 3);
+
+        assertEquals(List.of("late"), wheel.advance(11));
+    }
+
+    @Test
+    void deadlinesBeyondRangeAreParkedUntilDue() {
+        // Alcance de 16 ticks; los plazos posteriores se aparcan en el nivel superior
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(1, 4, 2, 0);
+        wheel.schedule("far", 100);
+        wheel.schedule("farther", 1_000);
+
+        Map<String, Long> firedAt = advanceTickByTick(wheel, 0, 1_100);
+
+        assertEquals(100L, firedAt.get("far"));
+        assertEquals(1_000L, firedAt.get("farther"));
+    }
+
+    @Test
+    void singleLevelWheelDoesNotFireParkedDeadlinesEarly() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(1, 4, 1, 0);
+        wheel.schedule("far", 10);
+
+        Map<String, Long> firedAt = advanceTickByTick(wheel, 0, 20);
+
+        assertEquals(Map.of("far", 10L), firedAt);
+    }
+
+    @Test
+    void cancelAfterCascade() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(1, 4, 2, 0);
+        wheel.schedule("a", 13);
+        wheel.schedule("b", 14);
+
+        // En el tick 12 la ranura 3 del nivel 1 se redistribuye al nivel 0
+        assertTrue(wheel.advance(12).isEmpty());
+        assertTrue(wheel.contains("a"));
+
+        assertTrue(wheel.cancel("a"));
+        assertFalse(wheel.cancel("a"));
+        assertFalse(wheel.contains("a"));
+        assertEquals(1, wheel.size());
+
+        assertEquals(List.of("b"), wheel.advance(20));
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void rescheduleAfterCascadeMovesTheDeadline() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(1, 4, 2, 0);
+        wheel.schedule("a", 13);
+        assertTrue(wheel.advance(12).isEmpty());
+
+        wheel.schedule("a", 30);
+
+        Map<String, Long> firedAt = advanceTickByTick(wheel, 12, 40);
+        assertEquals(Map.of("a", 30L), firedAt);
+    }
+}
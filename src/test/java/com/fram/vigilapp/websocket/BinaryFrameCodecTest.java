@@ -0,0 +1,190 @@
+package com.fram.vigilapp.websocket;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class BinaryFrameCodecTest {
+
+    private static final UUID ALERT_ID = UUID.fromString("0f1e2d3c-4b5a-6978-8796-a5b4c3d2e1f0");
+    private static final long TIMESTAMP = 1_700_000_000_000L;
+
+    // NEW_ALERT de newAlert(), campo a campo. Si cambia, los clientes dejan de entenderlo:
+    // hay que subir la versión del subprotocolo en lugar de actualizar estos bytes
+    private static final byte[] GOLDEN_NEW_ALERT = HexFormat.of().parseHex(
+            "01" + "01"                                   // versión, NEW_ALERT
+            + "0f1e2d3c4b5a69788796a5b4c3d2e1f0"          // alertId
+            + "05" + "524f424f"                           // "ROBO"
+            + "ffdedf8a"                                  // -2.170998 × 1e6
+            + "fb3c7b49"                                  // -79.922359 × 1e6
+            + "11" + "4173616c746f20656e205065c3b16173"   // "Asalto en Peñas" (16 bytes UTF-8)
+            + "00"                                        // descripción null
+            + "04" + "416e61"                             // "Ana"
+            + "0000018bcfe56800");                        // timestamp
+
+    private static final byte[] GOLDEN_ALERT_EXPIRED = HexFormat.of().parseHex(
+            "01" + "02"
+            + "0f1e2d3c4b5a69788796a5b4c3d2e1f0"
+            + "05" + "524f424f"
+            + "ffdedf8a"
+            + "80000000"                                  // longitud sin valor
+            + "0000018bcfe56800");
+
+    private static Map<String, Object> newAlert() {
+        Map<String, Object> data = new HashMap<>();
+        data.put("type", "NEW_ALERT");
+        data.put("alertId", ALERT_ID);
+        data.put("alertCategory", "ROBO");
+        data.put("latitude", -2.170998);
+        data.put("longitude", -79.922359);
+        data.put("alertTitle", "Asalto en Peñas");
+        data.put("alertDescription", null);
+        data.put("createdByUserName", "Ana");
+        data.put("timestamp", TIMESTAMP);
+        return data;
+    }
+
+    @Test
+    void newAlertMatchesGoldenBytes() {
+        assertArrayEquals(GOLDEN_NEW_ALERT, BinaryFrameCodec.encode("NEW_ALERT", newAlert()));
+    }
+
+    @Test
+    void alertExpiredMatchesGoldenBytes() {
+        Map<String, Object> data = new HashMap<>();
+        // El id también se acepta como texto
+        data.put("alertId", ALERT_ID.toString());
+        data.put("alertCategory", "ROBO");
+        data.put("latitude", -2.170998);
+        data.put("timestamp", TIMESTAMP);
+
+        assertArrayEquals(GOLDEN_ALERT_EXPIRED, BinaryFrameCodec.encode("ALERT_EXPIRED", data));
+    }
+
+    @Test
+    void goldenNewAlertDecodesBackToTheSourceFields() {
+        Reader reader = new Reader(GOLDEN_NEW_ALERT);
+
+        assertEquals(BinaryFrameCodec.VERSION, reader.u8());
+        assertEquals(BinaryFrameCodec.NEW_ALERT, reader.u8());
+        assertAlert(newAlert(), reader.alert());
+        assertEquals(TIMESTAMP, reader.i64());
+        assertFalse(reader.hasRemaining());
+    }
+
+    @Test
+    void digestRoundTrip() {
+        List<Map<String, Object>> alerts = new ArrayList<>();
+        for (int i = 0; i < 130; i++) {
+            Map<String, Object> alert = newAlert();
+            alert.put("alertId", new UUID(i, -i));
+            alert.put("alertTitle", "Alerta " + i);
+            alert.put("latitude", i % 2 == 0 ? null : -i / 1_000_000.0);
+            alerts.add(alert);
+        }
+        Map<String, Object> data = new HashMap<>();
+        data.put("alerts", alerts);
+        data.put("timestamp", TIMESTAMP);
+
+        Reader reader = new Reader(BinaryFrameCodec.encode("ALERT_DIGEST", data));
+
+        assertEquals(BinaryFrameCodec.VERSION, reader.u8());
+        assertEquals(BinaryFrameCodec.ALERT_DIGEST, reader.u8());
+        // 130 no cabe en un byte de varint
+        assertEquals(alerts.size(), reader.varint());
+        for (Map<String, Object> alert : alerts) {
+            assertAlert(alert, reader.alert());
+        }
+        assertEquals(TIMESTAMP, reader.i64());
+        assertFalse(reader.hasRemaining());
+    }
+
+    @Test
+    void typesWithoutBinaryFormReturnNull() {
+        assertNull(BinaryFrameCodec.encode("UNREAD_COUNT", Map.<String, Object>of("count", 3)));
+    }
+
+    private static void assertAlert(Map<String, Object> expected, Map<String, Object> actual) {
+        assertEquals(expected.get("alertId"), actual.get("alertId"));
+        assertEquals(expected.get("alertCategory"), actual.get("alertCategory"));
+        assertEquals(expected.get("latitude"), actual.get("latitude"));
+        assertEquals(expected.get("longitude"), actual.get("longitude"));
+        assertEquals(expected.get("alertTitle"), actual.get("alertTitle"));
+        assertEquals(expected.get("alertDescription"), actual.get("alertDescription"));
+        assertEquals(expected.get("createdByUserName"), actual.get("createdByUserName"));
+    }
+
+    /**
+     * Lector mínimo del formato, como el de los clientes
+     */
+    private static final class Reader {
+
+        private final ByteBuffer buffer;
+
+        Reader(byte[] bytes) {
+            this.buffer = ByteBuffer.wrap(bytes);
+        }
+
+        int u8() {
+            return buffer.get() & 0xFF;
+        }
+
+        long i64() {
+            return buffer.getLong();
+        }
+
+        int varint() {
+            int value = 0;
+            for (int shift = 0; ; shift += 7) {
+                int b = u8();
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+        }
+
+        String str() {
+            int length = varint();
+            if (length == 0) {
+                return null;
+            }
+            byte[] bytes = new byte[length - 1];
+            buffer.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        Double coordinate() {
+            int micro = buffer.getInt();
+            return micro == Integer.MIN_VALUE ? null : micro / 1_000_000.0;
+        }
+
+        Map<String, Object> alert() {
+            Map<String, Object> alert = new HashMap<>();
+            alert.put("alertId", new UUID(buffer.getLong(), buffer.getLong()));
+            alert.put("alertCategory", str());
+            alert.put("latitude", coordinate());
+            alert.put("longitude", coordinate());
+            alert.put("alertTitle", str());
+            alert.put("alertDescription", str());
+            alert.put("createdByUserName", str());
+            return alert;
+        }
+
+        boolean hasRemaining() {
+            return buffer.hasRemaining();
+        }
+    }
+}